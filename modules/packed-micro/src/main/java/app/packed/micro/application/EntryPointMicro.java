@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package app.packed.micro.application;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import app.packed.application.App;
+import app.packed.container.BaseAssembly;
+import app.packed.entrypoint.Main;
+
+/**
+ * Benchmarks launching an image with an entry point.
+ * <p>
+ * {@link #noEntryPoint()} launches an identical image without an entry point. The difference between the two is the
+ * cost of entering the application. Both images contain {@code serviceCount} beans that are constructed on each launch.
+ * Run via {@link #main(String[])} to include allocation rates.
+ */
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class EntryPointMicro {
+
+    /** The number of additional beans in the image. */
+    @Param({ "1", "10", "100" })
+    public int serviceCount;
+
+    App.Launcher entryPoint;
+
+    App.Launcher noEntryPoint;
+
+    @Setup
+    public void setup() {
+        entryPoint = App.newImage(new BaseAssembly() {
+            @Override
+            protected void build() {
+                install(WithMain.class);
+                for (int i = 0; i < serviceCount; i++) {
+                    bean().multiInstall(Bean.class);
+                }
+            }
+        });
+        noEntryPoint = App.newImage(new BaseAssembly() {
+            @Override
+            protected void build() {
+                install(WithoutMain.class);
+                for (int i = 0; i < serviceCount; i++) {
+                    bean().multiInstall(Bean.class);
+                }
+            }
+        });
+    }
+
+    @Benchmark
+    public Void entryPoint() {
+        entryPoint.run();
+        return null;
+    }
+
+    @Benchmark
+    public Void noEntryPoint() {
+        noEntryPoint.run();
+        return null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EntryPointMicro.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+    }
+
+    public static class Bean {}
+
+    public static class WithMain {
+
+        @Main
+        public void main() {}
+    }
+
+    public static class WithoutMain {
+
+        public void main() {}
+    }
+}
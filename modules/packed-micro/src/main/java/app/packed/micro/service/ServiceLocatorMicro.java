@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package app.packed.micro.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import app.packed.container.BaseAssembly;
+import app.packed.operation.Provider;
+import app.packed.service.Key;
+import app.packed.service.ServiceLocator;
+
+/**
+ * Benchmarks looking up and providing services from a launched {@link ServiceLocator}.
+ * <p>
+ * Besides the services that are looked up, the locator contains {@code serviceCount} additional services with tagged
+ * keys. Run via {@link #main(String[])} to include allocation rates, lookups are expected to be allocation free.
+ */
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ServiceLocatorMicro {
+
+    /** A qualified key of a constant service. */
+    static final Key<String> TAGGED = Key.of(String.class).withTag("tagged");
+
+    /** The number of additional services in the locator. */
+    @Param({ "1", "10", "100" })
+    public int serviceCount;
+
+    ServiceLocator locator;
+
+    Provider<Constant> constantProvider;
+
+    Provider<Prototype> prototypeProvider;
+
+    @Setup
+    public void setup() {
+        locator = ServiceLocator.of(new BaseAssembly() {
+            @Override
+            protected void build() {
+                provideInstance(new Constant());
+                providePrototype(Prototype.class);
+                bean().multiInstallInstance("tagged").provideAs(TAGGED);
+                for (int i = 0; i < serviceCount; i++) {
+                    bean().multiInstallInstance("s" + i).provideAs(Key.of(String.class).withTag("s" + i));
+                }
+                exportAll();
+            }
+        });
+        constantProvider = locator.findProvider(Constant.class).get();
+        prototypeProvider = locator.findProvider(Prototype.class).get();
+    }
+
+    @Benchmark
+    public Object useClass() {
+        return locator.use(Constant.class);
+    }
+
+    @Benchmark
+    public Object useKey() {
+        return locator.use(TAGGED);
+    }
+
+    @Benchmark
+    public Object findInstanceClass() {
+        return locator.findInstance(Constant.class);
+    }
+
+    @Benchmark
+    public Object findInstanceKey() {
+        return locator.findInstance(TAGGED);
+    }
+
+    @Benchmark
+    public Object findProviderClass() {
+        return locator.findProvider(Constant.class);
+    }
+
+    @Benchmark
+    public Object findProviderKey() {
+        return locator.findProvider(TAGGED);
+    }
+
+    @Benchmark
+    public Object provideConstant() {
+        return constantProvider.provide();
+    }
+
+    /** Invokes the generated operation that creates a new prototype. */
+    @Benchmark
+    public Object providePrototype() {
+        return prototypeProvider.provide();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ServiceLocatorMicro.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+    }
+
+    public static class Constant {}
+
+    public static class Prototype {}
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package app.packed.micro.topology;
+
+import app.packed.bean.OnInitialize;
+import app.packed.bean.OnStart;
+import app.packed.bean.OnStop;
+import app.packed.container.Assembly;
+import app.packed.container.BaseAssembly;
+import app.packed.service.Key;
+import app.packed.service.Tag;
+
+/**
+ * The shape of a synthetic application.
+ * <p>
+ * The application is a tree of containers with the specified depth, where every non-leaf container links
+ * {@code fanOut} child containers. Every container has {@code beansPerContainer} beans. One of the beans is a hub that
+ * is provided as a service. {@code consumePercent} percent of the remaining beans depend on the hub,
+ * {@code lifecyclePercent} percent have initialization, start and stop methods. And the rest are plain beans without
+ * any dependencies. If {@code qualified} is true, the hub is provided with a qualified key.
+ *
+ * @param depth
+ *            the depth of the container tree, a depth of 1 is just the root container
+ * @param fanOut
+ *            the number of children of every non-leaf container
+ * @param beansPerContainer
+ *            the number of beans in every container
+ * @param consumePercent
+ *            the percentage of beans that depend on the hub service
+ * @param qualified
+ *            whether or not the hub is provided with a qualified key
+ * @param lifecyclePercent
+ *            the percentage of beans that have lifecycle methods
+ */
+public record Topology(int depth, int fanOut, int beansPerContainer, int consumePercent, boolean qualified, int lifecyclePercent) {
+
+    /** The qualified key of the hub. */
+    static final Key<Hub> QUALIFIED_HUB = new Key<@Tag("hub") Hub>() {};
+
+    /** {@return the number of containers in the application.} */
+    public int containerCount() {
+        int count = 0;
+        for (int i = 0, level = 1; i < depth; i++, level *= fanOut) {
+            count += level;
+        }
+        return count;
+    }
+
+    /** {@return a new assembly with this topology. Assemblies can only be used once, so a new is needed for every build.} */
+    public Assembly newAssembly() {
+        return new ContainerAssembly(this, 1);
+    }
+
+    /** An assembly for a single container in the tree. */
+    private static final class ContainerAssembly extends BaseAssembly {
+
+        /** The depth of the container. */
+        private final int level;
+
+        private final Topology topology;
+
+        private ContainerAssembly(Topology topology, int level) {
+            this.topology = topology;
+            this.level = level;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void build() {
+            Topology t = topology;
+            int beans = t.beansPerContainer;
+            if (beans > 0) {
+                if (t.qualified) {
+                    install(Hub.class).provideAs(QUALIFIED_HUB);
+                } else {
+                    install(Hub.class).provide();
+                }
+                beans--;
+            }
+            int consumers = beans * t.consumePercent / 100;
+            int lifecycle = Math.min(beans - consumers, beans * t.lifecyclePercent / 100);
+            Class<?> consumer = t.qualified ? QualifiedConsumer.class : Consumer.class;
+            for (int i = 0; i < consumers; i++) {
+                bean().multiInstall(consumer);
+            }
+            for (int i = 0; i < lifecycle; i++) {
+                bean().multiInstall(Lifecycle.class);
+            }
+            for (int i = consumers + lifecycle; i < beans; i++) {
+                bean().multiInstall(Plain.class);
+            }
+            if (level < t.depth) {
+                for (int i = 0; i < t.fanOut; i++) {
+                    link(new ContainerAssembly(t, level + 1));
+                }
+            }
+        }
+    }
+
+    /** A bean that depends on the hub. */
+    public static final class Consumer {
+        public Consumer(Hub hub) {}
+    }
+
+    /** The service that is provided in every container. */
+    public static final class Hub {}
+
+    /** A bean with lifecycle methods. */
+    public static final class Lifecycle {
+
+        @OnInitialize
+        public void initialize() {}
+
+        @OnStart
+        public void start() {}
+
+        @OnStop
+        public void stop() {}
+    }
+
+    /** A bean without any dependencies. */
+    public static final class Plain {}
+
+    /** A bean that depends on the hub via a qualified key. */
+    public static final class QualifiedConsumer {
+        public QualifiedConsumer(@Tag("hub") Hub hub) {}
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package app.packed.micro.topology;
+
+import app.packed.application.App;
+
+/**
+ * Prints the heap memory retained by images of synthetic topologies. An image only retains what is needed to launch the
+ * application, such as the generated method handles and the service locator index. The internal configuration of the
+ * application is released once the image has been created. So this measures the size of the launch state.
+ * <p>
+ * The numbers are estimates based on {@link Runtime} after forcing garbage collection, run with a fixed heap size (for
+ * example, -Xms1g -Xmx1g) for stable results.
+ */
+public final class TopologyFootprint {
+
+    /** The number of images that are retained for each measurement. */
+    private static final int IMAGES = 100;
+
+    private TopologyFootprint() {}
+
+    public static void main(String[] args) {
+        int[][] shapes = { { 1, 1, 1 }, { 1, 1, 10 }, { 3, 4, 1 }, { 3, 4, 10 }, { 4, 4, 10 } };
+        System.out.printf("%6s %7s %6s %10s %9s %14s%n", "depth", "fanOut", "beans", "qualified", "retained", "per container");
+        for (int[] s : shapes) {
+            for (boolean qualified : new boolean[] { false, true }) {
+                Topology t = new Topology(s[0], s[1], s[2], 50, qualified, 20);
+                long bytes = retainedBytes(t);
+                System.out.printf("%6d %7d %6d %10b %9d %14d%n", s[0], s[1], s[2], qualified, bytes, bytes / t.containerCount());
+            }
+        }
+    }
+
+    /**
+     * Estimates the number of bytes retained by a single image of the specified topology.
+     *
+     * @param topology
+     *            the topology
+     * @return the estimated number of bytes
+     */
+    static long retainedBytes(Topology topology) {
+        // Warm up class models and caches, so they are not attributed to the images
+        App.newImage(topology.newAssembly());
+
+        long before = usedMemory();
+        Object[] images = new Object[IMAGES];
+        for (int i = 0; i < IMAGES; i++) {
+            images[i] = App.newImage(topology.newAssembly());
+        }
+        long after = usedMemory();
+        if (images[IMAGES - 1] == null) { // keep the images reachable
+            throw new AssertionError();
+        }
+        return Math.max(0, after - before) / IMAGES;
+    }
+
+    private static long usedMemory() {
+        Runtime r = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return r.totalMemory() - r.freeMemory();
+    }
+}
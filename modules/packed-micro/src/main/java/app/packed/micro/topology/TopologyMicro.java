@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package app.packed.micro.topology;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import app.packed.application.App;
+
+/**
+ * Benchmarks building, creating an image of, and launching applications with a synthetic {@link Topology}.
+ * <p>
+ * Run via {@link #main(String[])} to include allocation rates, the normalized allocation rate of each benchmark is the
+ * allocation of the corresponding phase. See {@link TopologyFootprint} for the memory retained by an image.
+ */
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TopologyMicro {
+
+    @Param({ "1", "3" })
+    public int depth;
+
+    @Param({ "4" })
+    public int fanOut;
+
+    @Param({ "1", "10" })
+    public int beansPerContainer;
+
+    @Param({ "50" })
+    public int consumePercent;
+
+    @Param({ "false", "true" })
+    public boolean qualified;
+
+    @Param({ "0", "20" })
+    public int lifecyclePercent;
+
+    Topology topology;
+
+    App.Launcher image;
+
+    @Setup
+    public void setup() {
+        topology = new Topology(depth, fanOut, beansPerContainer, consumePercent, qualified, lifecyclePercent);
+        image = App.newImage(topology.newAssembly());
+    }
+
+    /** Builds the application without generating any code. */
+    @Benchmark
+    public Void build() {
+        App.verify(topology.newAssembly());
+        return null;
+    }
+
+    /** Builds the application and generates code for it. */
+    @Benchmark
+    public Object newImage() {
+        return App.newImage(topology.newAssembly());
+    }
+
+    /** Launches an existing image. */
+    @Benchmark
+    public Void launch() {
+        image.run();
+        return null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TopologyMicro.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+    }
+}
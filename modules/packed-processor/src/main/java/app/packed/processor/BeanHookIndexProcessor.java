@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package app.packed.processor;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+
+/**
+ * An annotation processor that indexes the members of every compiled class that are annotated with bean hook
+ * annotations. That is, annotations that are meta-annotated with {@code MethodHook}, {@code FieldHook} or
+ * {@code BindingHook}.
+ * <p>
+ * The index is written to {@value #INDEX} and is used when introspecting beans, instead of reflectively scanning
+ * every member of the bean class and its super classes. Classes that are not in any index are always scanned
+ * reflectively.
+ * <p>
+ * The processor is used by adding it as a {@code provided} dependency. Like other annotation processors it is
+ * discovered by the compiler via {@link java.util.ServiceLoader}.
+ * <p>
+ * The format of the index is line based. A line without any leading space is the binary name of a class, followed by
+ * the hexadecimal CRC-32 checksum of its class file, {@code "<name> <checksum>"}. The checksum is used at runtime to
+ * detect classes that have been recompiled without the processor. Followed by a line for each hook annotated field,
+ * {@code " F <name>"}, and method, {@code " M <name> <descriptor>"}, declared by the class. A class without any such
+ * lines has no hook annotated members.
+ * <p>
+ * Class files are only written after annotation processing has finished. So the index is written when javac has
+ * finished compiling. With other compilers no index is written.
+ */
+@SupportedAnnotationTypes("*")
+public final class BeanHookIndexProcessor extends AbstractProcessor {
+
+    /** The location of the index. Must match internal.app.packed.bean.BeanClassIndex. */
+    static final String INDEX = "META-INF/app.packed/bean-hooks.idx";
+
+    /** The meta-annotations that makes an annotation a hook annotation. */
+    private static final Set<String> HOOKS = Set.of("app.packed.bean.BeanExtensionPoint.MethodHook", "app.packed.bean.BeanExtensionPoint.FieldHook",
+            "app.packed.bean.BeanExtensionPoint.BindingHook");
+
+    /** The members of every indexed class, by its binary name, from all rounds. */
+    private final LinkedHashMap<String, List<String>> classes = new LinkedHashMap<>();
+
+    /** The index file, created in the last round and written when compilation has finished. */
+    private FileObject index;
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        try {
+            JavacTask.instance(processingEnv).addTaskListener(new TaskListener() {
+                @Override
+                public void finished(TaskEvent e) {
+                    if (e.getKind() == TaskEvent.Kind.COMPILATION && index != null) {
+                        write();
+                    }
+                }
+            });
+        } catch (IllegalArgumentException | UnsupportedOperationException e) {
+            // Not javac, we cannot compute checksums so every bean class is scanned reflectively
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element e : roundEnv.getRootElements()) {
+            if (e instanceof TypeElement t) {
+                indexClass(t);
+            }
+        }
+        if (roundEnv.processingOver() && !classes.isEmpty()) {
+            try {
+                index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+            } catch (IOException e) {
+                warnNotWritten(e);
+            }
+        }
+        return false; // We never claim any annotations
+    }
+
+    private void indexClass(TypeElement type) {
+        ArrayList<String> members = new ArrayList<>();
+        for (Element e : type.getEnclosedElements()) {
+            if (e instanceof TypeElement nested) {
+                indexClass(nested);
+            } else if (e.getKind() == ElementKind.FIELD || e.getKind() == ElementKind.ENUM_CONSTANT) {
+                if (isHooked(e)) {
+                    members.add(" F " + e.getSimpleName());
+                }
+            } else if (e.getKind() == ElementKind.METHOD) {
+                if (isHooked(e)) {
+                    members.add(" M " + e.getSimpleName() + " " + descriptor((ExecutableElement) e));
+                }
+            }
+        }
+        classes.put(processingEnv.getElementUtils().getBinaryName(type).toString(), members);
+    }
+
+    /** {@return whether or not the specified member has any annotation that is meta-annotated with a hook annotation.} */
+    private static boolean isHooked(Element member) {
+        for (AnnotationMirror a : member.getAnnotationMirrors()) {
+            for (AnnotationMirror meta : a.getAnnotationType().asElement().getAnnotationMirrors()) {
+                if (HOOKS.contains(((TypeElement) meta.getAnnotationType().asElement()).getQualifiedName().toString())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private String descriptor(ExecutableElement method) {
+        StringBuilder sb = new StringBuilder("(");
+        for (VariableElement p : method.getParameters()) {
+            descriptor(sb, p.asType());
+        }
+        sb.append(')');
+        descriptor(sb, method.getReturnType());
+        return sb.toString();
+    }
+
+    private void descriptor(StringBuilder sb, TypeMirror type) {
+        TypeMirror t = processingEnv.getTypeUtils().erasure(type);
+        switch (t.getKind()) {
+        case BOOLEAN -> sb.append('Z');
+        case BYTE -> sb.append('B');
+        case CHAR -> sb.append('C');
+        case SHORT -> sb.append('S');
+        case INT -> sb.append('I');
+        case LONG -> sb.append('J');
+        case FLOAT -> sb.append('F');
+        case DOUBLE -> sb.append('D');
+        case VOID -> sb.append('V');
+        case ARRAY -> descriptor(sb.append('['), ((ArrayType) t).getComponentType());
+        case DECLARED -> {
+            TypeElement e = (TypeElement) ((DeclaredType) t).asElement();
+            sb.append('L').append(processingEnv.getElementUtils().getBinaryName(e).toString().replace('.', '/')).append(';');
+        }
+        default -> throw new IllegalArgumentException("Unsupported type " + t);
+        }
+    }
+
+    /** Writes the index, must be called after every class file has been written. */
+    private void write() {
+        try {
+            // The index is located at META-INF/app.packed/bean-hooks.idx relative to the root of the class output
+            Path root = Path.of(index.toUri()).getParent().getParent().getParent();
+            try (Writer w = new OutputStreamWriter(index.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, List<String>> e : classes.entrySet()) {
+                    Path classFile = root.resolve(e.getKey().replace('.', '/') + ".class");
+                    // A class that was not written, is not in the index, and is scanned reflectively
+                    if (Files.exists(classFile)) {
+                        CRC32 crc = new CRC32();
+                        crc.update(Files.readAllBytes(classFile));
+                        w.write(e.getKey() + " " + Long.toHexString(crc.getValue()) + "\n");
+                        for (String s : e.getValue()) {
+                            w.write(s);
+                            w.write('\n');
+                        }
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            warnNotWritten(e);
+        }
+    }
+
+    private void warnNotWritten(Exception e) {
+        // Without an index every bean class is scanned reflectively, so we do not fail the build
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Could not write " + INDEX + ": " + e);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package app.packed.processor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import app.packed.application.App;
+import app.packed.container.BaseAssembly;
+
+/** Tests {@link BeanHookIndexProcessor}. */
+public class BeanHookIndexProcessorTest {
+
+    /** Used by the compiled beans. */
+    public static final List<String> EVENTS = new ArrayList<>();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void index() throws IOException {
+        Path src = Files.writeString(dir.resolve("Foo.java"), """
+                package p;
+
+                import app.packed.bean.OnInitialize;
+                import app.packed.bean.OnStart;
+
+                public class Foo {
+                    String notHooked;
+
+                    @OnInitialize
+                    void init(String[] args, int i) {}
+
+                    @Deprecated
+                    void notHooked() {}
+
+                    public static class Bar {
+                        @OnStart
+                        public void start() {}
+                    }
+                }
+                """);
+        Path out = Files.createDirectory(dir.resolve("out"));
+        compile(src, out, true);
+
+        List<String> index = Files.readAllLines(out.resolve(BeanHookIndexProcessor.INDEX));
+        assertThat(index).containsExactly("p.Foo$Bar " + crc(out.resolve("p/Foo$Bar.class")), " M start ()V", "p.Foo " + crc(out.resolve("p/Foo.class")),
+                " M init ([Ljava/lang/String;I)V");
+    }
+
+    /** A hook annotation is added to an existing method, and the class is recompiled without the processor. */
+    @Test
+    public void recompiledWithoutProcessor() throws Exception {
+        Path src = dir.resolve("Foo.java");
+        Path out = Files.createDirectory(dir.resolve("out"));
+        Files.writeString(src, """
+                package p;
+
+                public class Foo {
+                    public void init() {
+                        app.packed.processor.BeanHookIndexProcessorTest.EVENTS.add("initialized");
+                    }
+                }
+                """);
+        compile(src, out, true);
+        assertThat(Files.readAllLines(out.resolve(BeanHookIndexProcessor.INDEX))).containsExactly("p.Foo " + crc(out.resolve("p/Foo.class")));
+        assertThat(run(out)).isEmpty();
+
+        Files.writeString(src, """
+                package p;
+
+                public class Foo {
+                    @app.packed.bean.OnInitialize
+                    public void init() {
+                        app.packed.processor.BeanHookIndexProcessorTest.EVENTS.add("initialized");
+                    }
+                }
+                """);
+        compile(src, out, false);
+        assertThat(run(out)).containsExactly("initialized");
+    }
+
+    private static void compile(Path src, Path out, boolean process) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fm = compiler.getStandardFileManager(null, null, null)) {
+            fm.setLocation(StandardLocation.CLASS_OUTPUT, List.of(out.toFile()));
+            List<String> options = process ? List.of("-classpath", System.getProperty("java.class.path"))
+                    : List.of("-classpath", System.getProperty("java.class.path"), "-proc:none");
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fm, null, options, null, fm.getJavaFileObjects(src));
+            if (process) {
+                task.setProcessors(List.of(new BeanHookIndexProcessor()));
+            }
+            assertTrue(task.call());
+        }
+    }
+
+    /** Installs p.Foo in a new application, and returns the events recorded by it. */
+    private static List<String> run(Path out) throws Exception {
+        EVENTS.clear();
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { out.toUri().toURL() }, BeanHookIndexProcessorTest.class.getClassLoader())) {
+            Class<?> foo = loader.loadClass("p.Foo");
+            App.run(new BaseAssembly() {
+                @Override
+                protected void build() {
+                    install(foo);
+                }
+            });
+        }
+        return List.copyOf(EVENTS);
+    }
+
+    private static String crc(Path classFile) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(Files.readAllBytes(classFile));
+        return Long.toHexString(crc.getValue());
+    }
+}
@@ -16,9 +16,11 @@
 package app.packed.application;
 
 import java.lang.invoke.MethodHandles;
+import java.nio.file.Path;
 import java.util.function.Supplier;
 
 import app.packed.container.Assembly;
+import app.packed.container.CacheableAssembly;
 import app.packed.container.Wirelet;
 import app.packed.extension.Extension;
 import app.packed.extension.bridge.ExtensionBridgeOuter;
@@ -77,6 +79,36 @@ public sealed interface ApplicationDriver<A> permits PackedApplicationDriver {
 
     ApplicationLauncher<A> newImage(Assembly assembly, Wirelet... wirelets);
 
+    /**
+     * Create a new application image, whose launch plan is persisted to the specified file.
+     * <p>
+     * A plan is matched against the class of the assembly only, the state of the assembly instance, for example,
+     * constructor arguments or configuration read by {@code build()}, is not part of the plan. Launch plans are therefore
+     * only read and written for assemblies that are annotated with {@link CacheableAssembly}. Other assemblies are always
+     * built, and the file is left untouched.
+     * <p>
+     * If the file contains a valid launch plan for the assembly, the image is created from the plan without building the
+     * application. Otherwise, the application is built as by {@link #newImage(Assembly, Wirelet...)}, and if possible,
+     * its launch plan is written to the file for use by later processes.
+     * <p>
+     * A launch plan can only be persisted for applications with an unmanaged lifetime, whose beans are all constructed
+     * and initialized by invoking constructors and methods with other beans of the application. Applications with a
+     * managed lifetime, entry points, beans installed as instances, lazy or prototype beans, services with qualifiers,
+     * or extensions that generate code are always built. The same applies if any wirelets are specified. A plan is
+     * ignored if the runtime, the class path, or any of the classes it references have changed since it was written.
+     * 
+     * @param launchPlan
+     *            the file to read or write the launch plan from
+     * @param assembly
+     *            the assembly that should be used to build the image, if there is no valid launch plan
+     * @param wirelets
+     *            optional wirelets
+     * @return the new image
+     * @throws RuntimeException
+     *             if the image could not be build
+     */
+    ApplicationLauncher<A> newImage(Path launchPlan, Assembly assembly, Wirelet... wirelets);
+
     /**
      * Create a new application image by using the specified assembly and optional wirelets.
      * 
@@ -66,6 +66,11 @@ public class ApplicationMirror implements Mirror {
         return container().assembly();
     }
 
+    /** {@return statistics that were recorded while building the application.} */
+    public BuildStatistics buildStatistics() {
+        return application().statistics;
+    }
+
     /** {@return the build goal that was used when building the application.} */
     public BuildGoal buildGoal() {
         return application().goal;
@@ -56,9 +56,23 @@ public enum BuildGoal {
      * 
      * @see ApplicationDriver#verify(Assembly, Wirelet...)
      */
-    VERIFY;
+    VERIFY,
+
+    /**
+     * The goal is to generate Java source code that constructs the application without Packed.
+     * <p>
+     * The application is code generated as if it was launched, but it is never launched.
+     * 
+     * @see app.packed.service.ServiceLocator#generateSource(String, Assembly, Wirelet...)
+     */
+    GENERATE_SOURCE;
 
     public boolean isLaunchable() {
         return this == LAUNCH || this == NEW_LAUNCHER || this == NEW_IMAGE;
     }
+
+    /** {@return whether or not the application is code generated.} */
+    public boolean isCodegen() {
+        return isLaunchable() || this == GENERATE_SOURCE;
+    }
 }
\ No newline at end of file
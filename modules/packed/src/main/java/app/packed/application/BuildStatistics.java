@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package app.packed.application;
+
+import java.time.Duration;
+
+/**
+ * Statistics that are recorded while building an application.
+ * <p>
+ * The durations of the individual phases are wall clock time. Phases that are not part of the build goal, for example,
+ * code generation when building a mirror, have a duration of {@link Duration#ZERO}.
+ * <p>
+ * The statistics of an application that is launched, or created as an image, are available by injecting an
+ * {@link ApplicationMirror} into a bean of the application. In which case the mirror is created at build time, but the
+ * statistics of the code generating phase are available once the application has been built.
+ *
+ * @see ApplicationMirror#buildStatistics()
+ */
+public interface BuildStatistics {
+
+    /** {@return the number of containers in the application.} */
+    int containerCount();
+
+    /** {@return the number of beans in the application.} */
+    int beanCount();
+
+    /** {@return the number of operations in the application.} */
+    int operationCount();
+
+    /** {@return the number of bindings of every operation in the application.} */
+    int bindingCount();
+
+    /** {@return the number of operations that a method handle was generated for.} */
+    int methodHandleCount();
+
+    /** {@return the number of objects that are allocated in the root lifetime every time the application is launched.} */
+    int arenaSize();
+
+    /** {@return the number of distinct bean classes that were introspected while building the application.} */
+    int introspectedClassCount();
+
+    /**
+     * {@return the number of distinct bean classes whose model was reused from an introspection of an earlier application.}
+     */
+    int cachedClassCount();
+
+    /** {@return the time spent running the assemblies of the application.} */
+    Duration assembleTime();
+
+    /** {@return the time spent closing the assemblies and extensions of the application.} */
+    Duration closeTime();
+
+    /** {@return the time spent checking for dependency cycles between services.} */
+    Duration cycleCheckTime();
+
+    /** {@return the time spent generating code for the application.} */
+    Duration codegenTime();
+}
@@ -161,17 +161,17 @@ public class BeanExtension extends FrameworkExtension<BeanExtension> {
                 }
 
                 if (ar.isAnnotationPresent(OnStart.class)) {
-                    @SuppressWarnings("unused")
                     OnStart oi = ar.readRequired(OnStart.class);
                     OperationSetup os = OperationSetup.crack(method.newOperation(temp));
-                    os.bean.operationsLifetime.add(new LifetimeOperation(RunState.STARTING, os));
+                    checkNotLazy(os, OnStart.class);
+                    os.bean.operationsLifetime.add(new LifetimeOperation(RunState.STARTING, os, oi.async()));
                 }
 
                 if (ar.isAnnotationPresent(OnStop.class)) {
-                    @SuppressWarnings("unused")
                     OnStop oi = ar.readRequired(OnStop.class);
                     OperationSetup os = OperationSetup.crack(method.newOperation(temp));
-                    os.bean.operationsLifetime.add(new LifetimeOperation(RunState.STOPPING, os));
+                    checkNotLazy(os, OnStop.class);
+                    os.bean.operationsLifetime.add(new LifetimeOperation(RunState.STOPPING, os, oi.async()));
                 }
 
                 if (ar.isAnnotationPresent(Inject.class)) {
@@ -181,6 +181,17 @@ public class BeanExtension extends FrameworkExtension<BeanExtension> {
         };
     }
 
+    /**
+     * Lazy beans are created on first use, and are never started or stopped. So they cannot have start or stop
+     * operations.
+     */
+    private static void checkNotLazy(OperationSetup os, Class<?> annotationType) {
+        if (os.bean.beanKind == BeanKind.LAZY) {
+            throw new InvalidBeanDefinitionException(
+                    "Lazy beans cannot have methods annotated with @" + annotationType.getSimpleName() + ", bean = " + os.bean.beanClass);
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     protected BeanExtensionMirror newExtensionMirror() {
@@ -256,7 +256,9 @@ public final /* primitive */ class BeanHandle<T> {
     public void specializeMirror(Supplier<? extends BeanMirror> supplier) {
         requireNonNull(supplier, "supplier is null");
         checkIsConfigurable();
-        bean.mirrorSupplier = supplier;
+        if (!bean.container.application.isLean) {
+            bean.mirrorSupplier = supplier;
+        }
     }
 
     /** {@inheritDoc} */
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package app.packed.container;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import app.packed.application.ApplicationDriver;
+
+/**
+ * Indicates that an assembly is stateless. So every instance of the assembly class, built with the same wirelets, will
+ * always result in the same application.
+ * <p>
+ * When launching an application from an assembly with this annotation, for example, via
+ * {@link ApplicationDriver#launch(Assembly, Wirelet...)}, the application is only built the first time. Subsequent
+ * launches with the same assembly class and wirelets reuse an image of the application that is cached by the driver.
+ * <p>
+ * Only wirelets that are provided by Packed, such as {@link Wirelet#named(String)}, can be part of the cache key.
+ * Launches that specify any other wirelets always build the application.
+ * <p>
+ * Only applications built from assemblies with this annotation can have their launch plan persisted via
+ * {@link ApplicationDriver#newImage(java.nio.file.Path, Assembly, Wirelet...)}.
+ * <p>
+ * This annotation is not inherited. Every assembly class that is cacheable must be annotated.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CacheableAssembly {}
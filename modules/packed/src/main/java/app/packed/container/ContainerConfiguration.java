@@ -9,6 +9,7 @@ import app.packed.application.NamespacePath;
 import app.packed.extension.Extension;
 import app.packed.framework.Nullable;
 import internal.app.packed.container.AssemblySetup;
+import internal.app.packed.container.ContainerLinkEvent;
 import internal.app.packed.container.ExtensionSetup;
 
 /**
@@ -94,18 +95,29 @@ public class ContainerConfiguration {
      *            realm
      * @param wirelets
      *            optional wirelets
-     * @return the component that was linked
+     * @return a mirror of the assembly that was linked. If the application is built with {@link Wirelet#leanBuild()},
+     *         mirrors that are reached from it, for example, {@link AssemblyMirror#container()}, are not available and
+     *         throw {@link IllegalStateException}
      */
     public AssemblyMirror link(Assembly assembly, Wirelet... wirelets) {
         // Check that the assembly is still configurable
         checkIsConfigurable();
 
+        ContainerLinkEvent event = new ContainerLinkEvent();
+        event.begin();
+
         // Create a new assembly
         AssemblySetup as = new AssemblySetup(handle.container, assembly, wirelets);
 
         // Build the assembly
         as.build();
 
+        if (event.shouldCommit()) {
+            event.assemblyClass = assembly.getClass();
+            event.parentPath = handle.container.path().toString();
+            event.commit();
+        }
+
         return as.mirror();
     }
 
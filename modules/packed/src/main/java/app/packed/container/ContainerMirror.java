@@ -105,10 +105,11 @@ public non-sealed class ContainerMirror implements ContextualizedElement , Mirro
 
     /** {@return an unmodifiable view of all of the children of this component.} */
     public Stream<ContainerMirror> children() {
-        // childIterable?
-        // does not work because container().containerChildren may be null
-        throw new UnsupportedOperationException();
-        // return CollectionUtil.unmodifiableView(container().containerChildren, c -> c.mirror());
+        ArrayList<ContainerMirror> children = new ArrayList<>();
+        for (var c = container().treeFirstChild; c != null; c = c.treeNextSiebling) {
+            children.add(c.mirror());
+        }
+        return List.copyOf(children).stream();
     }
 
     /**
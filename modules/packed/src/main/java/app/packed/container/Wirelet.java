@@ -19,6 +19,7 @@ import static java.util.Objects.requireNonNull;
 
 import app.packed.bean.BeanConfiguration;
 import internal.app.packed.container.CompositeWirelet;
+import internal.app.packed.container.InternalWirelet.LeanBuildWirelet;
 import internal.app.packed.container.InternalWirelet.OverrideNameWirelet;
 import internal.app.packed.container.WireletModel;
 import internal.app.packed.util.StackWalkerUtil;
@@ -205,6 +206,22 @@ public abstract class Wirelet {
         return CompositeWirelet.of(wirelets);
     }
 
+    /**
+     * Returns a wirelet that builds the application without retaining any data that is only needed for mirrors.
+     * <p>
+     * This is intended for production launches where mirrors are never requested. Mirror suppliers are ignored and build
+     * statistics are not calculated. Any attempt to obtain a mirror of the application, or any of its components, will
+     * fail with {@link IllegalStateException}.
+     * <p>
+     * The wirelet can only be specified when building the root container of an application. And cannot be specified
+     * when building a mirror.
+     * 
+     * @return a lean build wirelet
+     */
+    public static Wirelet leanBuild() {
+        return new LeanBuildWirelet();
+    }
+
     /**
      * Returns a wirelet that will set the name of the component to the specified name.
      * <p>
@@ -16,6 +16,7 @@
 package app.packed.extension;
 
 import app.packed.application.ApplicationMirror;
+import app.packed.application.BuildException;
 import app.packed.bean.BeanIntrospector;
 import app.packed.bean.BeanMirror;
 import app.packed.container.AssemblyMirror;
@@ -62,6 +63,12 @@ public class MirrorExtension extends FrameworkExtension<MirrorExtension> {
                 IntrospectedBeanBinding ibb = ((IntrospectedBeanBinding) binding);
                 OperationSetup operation = ibb.operation;
                 BeanSetup bean = ibb.operation.bean;
+                Class<?> hook = binding.hookClass();
+                if (bean.container.application.isLean && (hook == ApplicationMirror.class || hook == AssemblyMirror.class || hook == ContainerMirror.class
+                        || hook == BeanMirror.class || hook == OperationMirror.class)) {
+                    throw new BuildException("Cannot inject " + hook.getSimpleName() + " into the bean " + bean.path()
+                            + ", mirrors are not available for applications that are built with Wirelet.leanBuild()");
+                }
                 if (binding.hookClass() == ApplicationMirror.class) {
                     binding.bind(bean.container.application.mirror());
                 } else if (binding.hookClass() == AssemblyMirror.class) {
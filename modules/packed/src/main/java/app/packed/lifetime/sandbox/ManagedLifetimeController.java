@@ -57,14 +57,17 @@ public interface ManagedLifetimeController {
      * Blocks until the lifetime reaches the specified run state, or the current thread is interrupted, whichever happens
      * first.
      * <p>
-     * If the lifetime has already reached (or passed) the specified state this method returns immediately. For example, if
-     * attempting to wait on the {@link RunState#RUNNING} state and the lifetime has already terminated. This method will
-     * return immediately.
+     * If the lifetime has already reached the specified state this method returns immediately. If the lifetime has passed
+     * the specified state without ever entering it. For example, if attempting to wait on the {@link RunState#RUNNING}
+     * state and the lifetime failed to start, or was stopped before being started. This method will throw
+     * {@link IllegalStateException}.
      *
      * @param state
      *            the state to wait on
      * @throws InterruptedException
      *             if interrupted while waiting
+     * @throws IllegalStateException
+     *             if the lifetime passed the specified state without entering it
      * @see #await(RunState, long, TimeUnit)
      * @see #state()
      */
@@ -74,9 +77,8 @@ public interface ManagedLifetimeController {
      * Blocks until the component has reached the requested state, or the timeout occurs, or the current thread is
      * interrupted, whichever happens first.
      * <p>
-     * If the component has already reached or passed the specified state this method returns immediately with. For example,
-     * if attempting to wait on the {@link RunState#RUNNING} state and the object has already been stopped. This method will
-     * return immediately with true.
+     * If the component has already reached the specified state this method returns immediately with true. If the component
+     * has passed the specified state without ever entering it, this method throws {@link IllegalStateException}.
      *
      * @param state
      *            the state to wait on
@@ -88,6 +90,8 @@ public interface ManagedLifetimeController {
      *         timeout elapsed before reaching the state
      * @throws InterruptedException
      *             if interrupted while waiting
+     * @throws IllegalStateException
+     *             if the component passed the specified state without entering it
      * @see #await(RunState)
      * @see #state()
      */
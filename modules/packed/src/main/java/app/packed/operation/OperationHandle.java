@@ -204,7 +204,10 @@ public final /* primitive */ class OperationHandle {
      */
     public void specializeMirror(Supplier<? extends OperationMirror> supplier) {
         checkConfigurable();
-        operation.mirrorSupplier = requireNonNull(supplier, "supplier is null");
+        requireNonNull(supplier, "supplier is null");
+        if (!operation.bean.container.application.isLean) {
+            operation.mirrorSupplier = supplier;
+        }
     }
 
     /** {@inheritDoc} */
@@ -17,7 +17,7 @@ package app.packed.service;
 
 import static java.util.Objects.requireNonNull;
 
-import java.util.Map;
+import java.nio.file.Path;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
@@ -39,7 +39,7 @@ import app.packed.operation.Op;
 import app.packed.operation.Op1;
 import app.packed.operation.Provider;
 import internal.app.packed.application.ApplicationInitializationContext;
-import internal.app.packed.lifetime.PackedExtensionContext;
+import internal.app.packed.application.PackedApplicationDriver;
 import internal.app.packed.service.PackedServiceLocator;
 
 /**
@@ -295,7 +295,35 @@ public interface ServiceLocator {
      * @see #of(Assembly, Wirelet...)
      */
     private static ApplicationDriver<ServiceLocator> driver() {
-        throw new UnsupportedOperationException();
+        class ServiceLocatorDriver {
+            private static final ApplicationDriver<ServiceLocator> DRIVER = ApplicationDriver.builder().build(ServiceLocator.class,
+                    new Op1<ApplicationInitializationContext, ServiceLocator>(c -> c.serviceLocator()) {});
+        }
+        return ServiceLocatorDriver.DRIVER;
+    }
+
+    /**
+     * Builds an application and generates the Java source of a service locator class that constructs it. The generated
+     * class does not use reflection or method handles, and can be compiled together with the application.
+     * <p>
+     * Source can only be generated for applications whose beans are all container beans that are constructed and
+     * initialized by invoking constructors and methods with other beans of the application. And whose services do not
+     * have qualifiers. Every bean class, constructor and method must be accessible from the package of the generated
+     * class.
+     * 
+     * @param className
+     *            the fully qualified name of the class to generate
+     * @param assembly
+     *            the assembly of the application
+     * @param wirelets
+     *            optional wirelets
+     * @return the source of the class
+     * @throws UnsupportedOperationException
+     *             if source cannot be generated for the application
+     * @see app.packed.application.BuildGoal#GENERATE_SOURCE
+     */
+    static String generateSource(String className, Assembly assembly, Wirelet... wirelets) {
+        return ((PackedApplicationDriver<ServiceLocator>) driver()).generateSource(className, assembly, wirelets);
     }
 
     // maaske har vi launcher og Image...
@@ -309,6 +337,22 @@ public interface ServiceLocator {
         return driver().newImage(assembly, wirelets);
     }
 
+    /**
+     * Creates a new service locator image, whose launch plan is persisted to the specified file.
+     * 
+     * @param launchPlan
+     *            the file to read or write the launch plan from
+     * @param assembly
+     *            the assembly to use for creating the image
+     * @param wirelets
+     *            optional wirelets
+     * @return the new image
+     * @see ApplicationDriver#newImage(Path, Assembly, Wirelet...)
+     */
+    static ApplicationLauncher<ServiceLocator> newImage(Path launchPlan, Assembly assembly, Wirelet... wirelets) {
+        return driver().newImage(launchPlan, assembly, wirelets);
+    }
+
     /**
      * Creates a new service locator image from the specified assembly and optional wirelets.
      * 
@@ -329,7 +373,7 @@ public interface ServiceLocator {
 
     /** {@return a service locator that provides no services.} */
     static ServiceLocator of() {
-        return new PackedServiceLocator(PackedExtensionContext.EMPTY, Map.of());
+        return PackedServiceLocator.EMPTY;
     }
 
     /**
@@ -348,14 +392,11 @@ public interface ServiceLocator {
     static ServiceLocator of(ComposerAction<? super Composer> action, Wirelet... wirelets) {
         class ServiceLocatorAssembly extends ComposerAssembly<Composer> {
 
-            private static final ApplicationDriver<ServiceLocator> DRIVER = ApplicationDriver.builder().build(ServiceLocator.class,
-                    new Op1<ApplicationInitializationContext, ServiceLocator>(c -> c.serviceLocator()) {});
-
             public ServiceLocatorAssembly(ComposerAction<? super Composer> action) {
                 super(new Composer(), action);
             }
         }
-        return ServiceLocatorAssembly.DRIVER.launch(new ServiceLocatorAssembly(action), wirelets);
+        return driver().launch(new ServiceLocatorAssembly(action), wirelets);
     }
 
     /**
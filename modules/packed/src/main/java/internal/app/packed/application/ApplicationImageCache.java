@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.application;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import app.packed.container.Assembly;
+import app.packed.container.CacheableAssembly;
+import app.packed.container.Wirelet;
+import app.packed.framework.Nullable;
+import internal.app.packed.container.AssemblyModel;
+import internal.app.packed.container.CompositeWirelet;
+import internal.app.packed.container.InternalWirelet;
+
+/**
+ * A bounded cache of application images, used by an application driver for launching applications from
+ * {@link CacheableAssembly cacheable assemblies}.
+ * <p>
+ * Images are keyed by the class of the assembly and the fingerprints of every wirelet that was specified when building
+ * the application. When the cache is full, the least recently used image is evicted.
+ */
+public final class ApplicationImageCache {
+
+    /** The default maximum number of images in a cache. */
+    public static final int DEFAULT_MAX_SIZE = 64;
+
+    /** The number of lookups that found an image. */
+    private long hits;
+
+    /** The images, in access order. */
+    private final LinkedHashMap<Key, PackedApplicationLauncher> images;
+
+    /** The number of lookups that did not find an image. */
+    private long misses;
+
+    /**
+     * Creates a new cache.
+     * 
+     * @param maxSize
+     *            the maximum number of images in the cache
+     * @throws IllegalArgumentException
+     *             if the maximum size is not positive
+     */
+    public ApplicationImageCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive, was " + maxSize);
+        }
+        this.images = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            /** {@inheritDoc} */
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PackedApplicationLauncher> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the image for the specified key, updating the hit and miss counters.
+     * 
+     * @param key
+     *            the key to look up
+     * @return the image, or null if the cache does not contain an image for the key
+     */
+    @Nullable
+    public synchronized PackedApplicationLauncher get(Key key) {
+        PackedApplicationLauncher launcher = images.get(key);
+        if (launcher == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return launcher;
+    }
+
+    /** {@return the number of lookups that found an image.} */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /** {@return the number of lookups that did not find an image.} */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * Adds an image to the cache, possible evicting the least recently used image.
+     * 
+     * @param key
+     *            the key of the image
+     * @param launcher
+     *            the image
+     */
+    public synchronized void put(Key key, PackedApplicationLauncher launcher) {
+        images.put(key, launcher);
+    }
+
+    /** {@return the number of images in the cache.} */
+    public synchronized int size() {
+        return images.size();
+    }
+
+    /**
+     * Returns a key for the specified assembly and wirelets.
+     * 
+     * @param assembly
+     *            the assembly
+     * @param wirelets
+     *            the wirelets that are specified when building the application
+     * @return the key, or null if the assembly is not annotated with {@link CacheableAssembly}, or if any of the wirelets
+     *         cannot be part of a key
+     */
+    @Nullable
+    public static Key keyOf(Assembly assembly, Wirelet[] wirelets) {
+        Class<? extends Assembly> assemblyClass = assembly.getClass();
+        if (!AssemblyModel.of(assemblyClass).isCacheable) {
+            return null;
+        }
+        Wirelet[] ws = CompositeWirelet.flattenAll(wirelets);
+        ArrayList<Object> fingerprints = new ArrayList<>(ws.length);
+        for (Wirelet w : ws) {
+            Object fingerprint = w instanceof InternalWirelet iw ? iw.fingerprint() : null;
+            if (fingerprint == null) {
+                return null;
+            }
+            fingerprints.add(fingerprint);
+        }
+        return new Key(assemblyClass, List.copyOf(fingerprints));
+    }
+
+    /** The key of an image. */
+    public record Key(Class<?> assemblyClass, List<Object> wirelets) {}
+}
@@ -17,14 +17,13 @@ package internal.app.packed.application;
 
 import static java.util.Objects.requireNonNull;
 
-import java.lang.invoke.MethodHandle;
-
 import app.packed.container.Wirelet;
 import app.packed.framework.Nullable;
 import app.packed.lifetime.sandbox.ManagedLifetimeController;
 import app.packed.service.ServiceLocator;
 import internal.app.packed.container.InternalWirelet;
 import internal.app.packed.container.WireletWrapper;
+import internal.app.packed.lifetime.LifetimeInitializationEvent;
 import internal.app.packed.lifetime.PackedExtensionContext;
 import internal.app.packed.lifetime.sandbox.PackedManagedLifetime;
 import internal.app.packed.lifetime.sandbox2.OldLifetimeKind;
@@ -35,8 +34,8 @@ import internal.app.packed.util.ThrowableUtil;
  */
 public final class ApplicationInitializationContext {
 
-    /** The configuration of the application we are launching. */
-    public final ApplicationSetup application;
+    /** The launcher of the application. */
+    public final PackedApplicationLauncher launcher;
 
     /** The launch mode of the application. */
     final OldLifetimeKind lifetimeKind;
@@ -56,12 +55,12 @@ public final class ApplicationInitializationContext {
     @Nullable
     private final WireletWrapper wirelets;
 
-    private ApplicationInitializationContext(ApplicationSetup application, WireletWrapper wirelets) {
-        this.application = application;
+    private ApplicationInitializationContext(PackedApplicationDriver<?> driver, PackedApplicationLauncher launcher, WireletWrapper wirelets) {
+        this.launcher = launcher;
         this.wirelets = wirelets;
-        this.name = requireNonNull(application.container.name);
-        this.lifetimeKind = requireNonNull(application.driver.lifetimeKind());
-        this.runtime = application.runtimeAccessor == null ? null : new PackedManagedLifetime(this);
+        this.name = launcher.name;
+        this.lifetimeKind = requireNonNull(driver.lifetimeKind());
+        this.runtime = launcher.runtimeAccessor == null ? null : new PackedManagedLifetime(this);
     }
 
     /** {@return the name of the application} */
@@ -87,7 +86,7 @@ public final class ApplicationInitializationContext {
      * @return a service locator for the application
      */
     public ServiceLocator serviceLocator() {
-        return application.container.sm.newServiceLocator(pool);
+        return launcher.services.newLocator(pool);
     }
 
     /**
@@ -97,44 +96,61 @@ public final class ApplicationInitializationContext {
      *            the type of application shell
      * @param driver
      *            the driver of the application.
-     * @param application
-     *            the application we are launching
+     * @param launcher
+     *            the launcher of the application
      * @param wirelets
      *            optional wirelets is always null if not launched from an image
      * @return the application instance
      */
-    public static <A> A launch(PackedApplicationDriver<A> driver, ApplicationSetup application, @Nullable WireletWrapper wirelets) {
-        assert driver == application.driver; // it is just here because of <A>
+    static <A> A launch(PackedApplicationDriver<A> driver, PackedApplicationLauncher launcher, @Nullable WireletWrapper wirelets) {
+        ApplicationLaunchEvent event = new ApplicationLaunchEvent();
+        event.begin();
 
         // Create a launch context
-        ApplicationInitializationContext context = new ApplicationInitializationContext(application, wirelets);
+        ApplicationInitializationContext context = new ApplicationInitializationContext(driver, launcher, wirelets);
 
         // Apply all internal wirelets
         if (wirelets != null) {
             for (Wirelet w : wirelets.wirelets) {
                 if (w instanceof InternalWirelet iw) {
-                    iw.onImageInstantiation(application.container, context);
+                    iw.onImageInstantiation(context);
                 }
             }
         }
 
-        PackedExtensionContext pool = context.pool = application.container.lifetime.pool.newRuntimePool(context);
+        LifetimeInitializationEvent lie = new LifetimeInitializationEvent();
+        lie.begin();
 
-        // Run all initializers
-        for (MethodHandle mh : application.container.lifetime.initializers) {
-            try {
-                mh.invoke(pool);
-            } catch (Throwable e) {
-                throw ThrowableUtil.orUndeclared(e);
-            }
+        PackedExtensionContext pool = context.pool = PackedExtensionContext.create(launcher.shared, launcher.size);
+        if (context.runtime != null) {
+            launcher.runtimeAccessor.store(pool, context.runtime);
+        }
+
+        // Populate the pool and run all initializers
+        try {
+            launcher.initializer.invokeExact(pool);
+        } catch (Throwable e) {
+            throw ThrowableUtil.orUndeclared(e);
         }
-        
+
+        if (lie.shouldCommit()) {
+            lie.arenaSize = launcher.size;
+            lie.commit();
+        }
+
         // INITIALIZATION IS DONE
 
         if (context.runtime != null) {
-            context.runtime.launch(application, context);
+            context.runtime.launch(context);
         }
 
-        return driver.newInstance(context);
+        A result = driver.newInstance(context);
+
+        if (event.shouldCommit()) {
+            event.applicationName = context.name;
+            event.fromImage = launcher.fromImage;
+            event.commit();
+        }
+        return result;
     }
 }
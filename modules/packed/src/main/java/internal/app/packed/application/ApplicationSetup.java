@@ -57,6 +57,12 @@ public final class ApplicationSetup {
     /** The build goal. */
     public final BuildGoal goal;
 
+    /**
+     * Whether or not the application is built without retaining data that is only needed for mirrors. Is set via
+     * {@link Wirelet#leanBuild()}.
+     */
+    public boolean isLean;
+
     /**
      * A launcher for launching the application. Is not created for {@link BuildGoal#VERIFY} or
      * {@link BuildGoal#NEW_MIRROR}.
@@ -67,6 +73,9 @@ public final class ApplicationSetup {
     /** The current phase of the build process. */
     private ApplicationBuildPhase phase = ApplicationBuildPhase.ASSEMBLE;
 
+    /** Statistics that are recorded while building the application. */
+    public final PackedBuildStatistics statistics = new PackedBuildStatistics();
+
     /** The index of the application's runtime in the constant pool, or -1 if the application has no runtime, */
     @Nullable
     public final DynamicAccessor runtimeAccessor;
@@ -79,7 +88,7 @@ public final class ApplicationSetup {
         this.goal = requireNonNull(goal);
 
         // Only generate code if the application can be launched (not a mirror or verify)
-        this.codegen = goal.isLaunchable() ? new ApplicationCodegen() : null;
+        this.codegen = goal.isCodegen() ? new ApplicationCodegen() : null;
 
         // Create the root container of the application
         this.container = new ContainerSetup(this, assembly, null, wirelets);
@@ -114,17 +123,39 @@ public final class ApplicationSetup {
         }
     }
 
+    /**
+     * Checks that mirrors are available for the application.
+     * 
+     * @throws IllegalStateException
+     *             if the application was built with {@link Wirelet#leanBuild()}
+     */
+    public void checkMirrorsAvailable() {
+        if (isLean) {
+            throw new IllegalStateException("Mirrors are not available for an application that was built with Wirelet.leanBuild()");
+        }
+    }
+
     public void finish() {
+        // The node counts are only exposed via ApplicationMirror#buildStatistics()
+        if (!isLean) {
+            statistics.countNodes(container);
+        }
         if (codegen != null) {
             phase = ApplicationBuildPhase.CODEGEN;
+            long start = System.nanoTime();
             CodegenEvent ce = new CodegenEvent();
             ce.begin();
 
             container.lifetime.codegen();
+            container.sm.codegen();
             for (Runnable r : codegen.actions) {
                 r.run();
             }
-            ce.commit();
+            if (ce.shouldCommit()) {
+                ce.applicationName = container.name;
+                ce.commit();
+            }
+            statistics.codegenNanos = System.nanoTime() - start;
 
             launcher = new PackedApplicationLauncher(this);
         }
@@ -133,6 +164,7 @@ public final class ApplicationSetup {
 
     /** {@return a mirror that can be exposed to end-users.} */
     public ApplicationMirror mirror() {
+        checkMirrorsAvailable();
         ApplicationMirror mirror = ClassUtil.mirrorHelper(ApplicationMirror.class, ApplicationMirror::new, driver.mirrorSupplier);
 
         // Initialize ApplicationMirror by calling ApplicationMirror#initialize(ApplicationSetup)
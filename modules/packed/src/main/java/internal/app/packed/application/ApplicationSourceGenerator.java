@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.application;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+
+import internal.app.packed.application.WiringPlan.Step;
+
+/**
+ * Generates the Java source of a class that constructs the same object graph as a code generated application. Using
+ * plain constructor and method invocations, and without any reflection or method handles.
+ * <p>
+ * The generated class implements {@link app.packed.service.ServiceLocator} with a switch over the names of the
+ * exported services. Its constructor creates every bean in dependency order and invokes every initialization method.
+ * Start and stop methods are invoked, sequentially in dependency order, by the generated {@code start()} and
+ * {@code stop()} methods.
+ * <p>
+ * Only applications that can be described by a {@link WiringPlan} are supported. Additionally, every class and member
+ * must be accessible from the package of the generated class.
+ */
+final class ApplicationSourceGenerator {
+
+    /** The application. */
+    private final ApplicationSetup application;
+
+    /** The package of the generated class, or "" if the unnamed package. */
+    private final String packageName;
+
+    /** The wiring of the application. */
+    private final WiringPlan plan;
+
+    /** The simple name of the generated class. */
+    private final String simpleName;
+
+    /** The generated source. */
+    private final StringBuilder sb = new StringBuilder();
+
+    private ApplicationSourceGenerator(ApplicationSetup application, String className) {
+        this.application = application;
+        this.plan = WiringPlan.of(application);
+        int i = className.lastIndexOf('.');
+        this.packageName = i < 0 ? "" : className.substring(0, i);
+        this.simpleName = className.substring(i + 1);
+    }
+
+    /**
+     * Generates the source of a class for the specified application.
+     * 
+     * @param application
+     *            the application, must have been code generated
+     * @param className
+     *            the fully qualified name of the class to generate
+     * @return the source of the class
+     * @throws IllegalArgumentException
+     *             if the specified class name is not valid
+     * @throws UnsupportedOperationException
+     *             if source cannot be generated for the application
+     */
+    static String generate(ApplicationSetup application, String className) {
+        for (String s : className.split("\\.", -1)) {
+            if (s.isEmpty() || !Character.isJavaIdentifierStart(s.charAt(0)) || !s.chars().skip(1).allMatch(Character::isJavaIdentifierPart)) {
+                throw new IllegalArgumentException("Not a valid class name, className = " + className);
+            }
+        }
+        ApplicationSourceGenerator g = new ApplicationSourceGenerator(application, className);
+        g.generateClass();
+        return g.sb.toString();
+    }
+
+    private void generateClass() {
+        sb.append("// Generated by Packed from ").append(application.container.assembly.assembly.getClass().getName()).append(". Do not edit.\n");
+        if (!packageName.isEmpty()) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+        sb.append("/** The application '").append(application.container.name).append("' with every bean wired by hand. */\n");
+        sb.append("@SuppressWarnings({ \"rawtypes\", \"unchecked\" })\n");
+        sb.append("public final class ").append(simpleName).append(" implements app.packed.service.ServiceLocator {\n\n");
+
+        // Keys
+        sb.append("    /** The keys of every service. */\n");
+        sb.append("    private static final java.util.Set<app.packed.service.Key<?>> KEYS = java.util.Set.of(");
+        String sep = "";
+        for (Class<?> key : plan.services.keySet()) {
+            sb.append(sep).append("app.packed.service.Key.of(").append(typeName(key)).append(".class)");
+            sep = ", ";
+        }
+        sb.append(");\n");
+
+        // Beans
+        for (int i = 0; i < plan.slots.length; i++) {
+            if (plan.slots[i] != null) {
+                sb.append("\n    private final ").append(typeName(plan.slots[i])).append(" s").append(i).append(";\n");
+            }
+        }
+
+        // Constructor
+        sb.append("\n    /** Creates and initializes every bean. */\n");
+        sb.append("    public ").append(simpleName).append("() {\n");
+        invoke(plan.initialize);
+        sb.append("    }\n");
+
+        sb.append("\n    /** Invokes every start method. */\n");
+        sb.append("    public void start() {\n");
+        invoke(plan.start);
+        sb.append("    }\n");
+
+        sb.append("\n    /** Invokes every stop method. */\n");
+        sb.append("    public void stop() {\n");
+        invoke(plan.stop);
+        sb.append("    }\n");
+
+        generateServiceLocator();
+        sb.append("}\n");
+    }
+
+    private void generateServiceLocator() {
+        sb.append("""
+
+                    /** {@return the service with the specified key, or null if there is no such service.} */
+                    private Object find(Class<?> key) {
+                        if (key.isPrimitive()) {
+                            key = app.packed.service.Key.of(key).rawType();
+                        }
+                        return switch (key.getName()) {
+                """);
+        for (Map.Entry<Class<?>, Integer> e : plan.services.entrySet()) {
+            String type = typeName(e.getKey());
+            sb.append("        case \"").append(e.getKey().getName()).append("\" -> key == ").append(type).append(".class ? s").append(e.getValue())
+                    .append(" : null;\n");
+        }
+        sb.append("""
+                        default -> null;
+                        };
+                    }
+
+                    /** {@return the service with the specified key, or null if there is no such service.} */
+                    private Object find(app.packed.service.Key<?> key) {
+                        java.util.Objects.requireNonNull(key, "key is null");
+                        return key.hasQualifiers() ? null : find(key.rawType());
+                    }
+
+                    /** {@inheritDoc} */
+                    @Override
+                    public boolean contains(Class<?> key) {
+                        return find(key) != null;
+                    }
+
+                    /** {@inheritDoc} */
+                    @Override
+                    public boolean contains(app.packed.service.Key<?> key) {
+                        return find(key) != null;
+                    }
+
+                    /** {@inheritDoc} */
+                    @Override
+                    public <T> java.util.Optional<T> findInstance(Class<T> key) {
+                        return java.util.Optional.ofNullable((T) find(key));
+                    }
+
+                    /** {@inheritDoc} */
+                    @Override
+                    public <T> java.util.Optional<T> findInstance(app.packed.service.Key<T> key) {
+                        return java.util.Optional.ofNullable((T) find(key));
+                    }
+
+                    /** {@inheritDoc} */
+                    @Override
+                    public <T> java.util.Optional<app.packed.operation.Provider<T>> findProvider(Class<T> key) {
+                        return findInstance(key).map(app.packed.operation.Provider::ofInstance);
+                    }
+
+                    /** {@inheritDoc} */
+                    @Override
+                    public <T> java.util.Optional<app.packed.operation.Provider<T>> findProvider(app.packed.service.Key<T> key) {
+                        return findInstance(key).map(app.packed.operation.Provider::ofInstance);
+                    }
+
+                    /** {@inheritDoc} */
+                    @Override
+                    public java.util.Set<app.packed.service.Key<?>> keys() {
+                        return KEYS;
+                    }
+
+                    /** {@inheritDoc} */
+                    @Override
+                    public <T> T use(Class<T> key) {
+                        Object o = find(key);
+                        if (o == null) {
+                            throw new java.util.NoSuchElementException("A service with the specified key does not exist, key = " + key);
+                        }
+                        return (T) o;
+                    }
+
+                    /** {@inheritDoc} */
+                    @Override
+                    public <T> T use(app.packed.service.Key<T> key) {
+                        Object o = find(key);
+                        if (o == null) {
+                            throw new java.util.NoSuchElementException("A service with the specified key does not exist, key = " + key);
+                        }
+                        return (T) o;
+                    }
+                """);
+    }
+
+    /**
+     * Generates a statement for each of the specified steps. Invocations of members that declare checked exceptions are
+     * wrapped in a try-catch that rethrows them as {@link java.lang.reflect.UndeclaredThrowableException}, like an
+     * application that is launched via method handles.
+     */
+    private void invoke(List<Step> steps) {
+        for (Step s : steps) {
+            Executable e = s.member();
+            checkAccessible(e.getDeclaringClass(), e.getModifiers(), e);
+            boolean checked = false;
+            for (Class<?> t : e.getExceptionTypes()) {
+                checked |= !RuntimeException.class.isAssignableFrom(t) && !Error.class.isAssignableFrom(t);
+            }
+            String indent = checked ? "            " : "        ";
+            if (checked) {
+                sb.append("        try {\n");
+            }
+            sb.append(indent);
+            if (s.store() >= 0) {
+                sb.append("this.s").append(s.store()).append(" = ");
+                if (!(e instanceof Constructor) && !plan.slots[s.store()].isAssignableFrom(((Method) e).getReturnType())) {
+                    sb.append('(').append(typeName(plan.slots[s.store()])).append(") ");
+                }
+            }
+            if (e instanceof Constructor) {
+                sb.append("new ").append(typeName(e.getDeclaringClass()));
+            } else {
+                sb.append(s.receiver() < 0 ? typeName(e.getDeclaringClass()) : "this.s" + s.receiver()).append('.').append(e.getName());
+            }
+            sb.append('(');
+            Class<?>[] parameterTypes = e.getParameterTypes();
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                int slot = s.arguments()[i];
+                if (!parameterTypes[i].isAssignableFrom(plan.slots[slot])) {
+                    sb.append('(').append(typeName(parameterTypes[i])).append(") ");
+                }
+                sb.append("this.s").append(slot);
+            }
+            sb.append(");\n");
+            if (checked) {
+                sb.append("""
+                                } catch (RuntimeException | Error e) {
+                                    throw e;
+                                } catch (Throwable e) {
+                                    throw new java.lang.reflect.UndeclaredThrowableException(e);
+                                }
+                        """);
+            }
+        }
+    }
+
+    /** {@return the name of the specified type as used in source code.} */
+    private String typeName(Class<?> type) {
+        if (type.isPrimitive()) {
+            return type.getName();
+        } else if (type.isArray()) {
+            return typeName(type.getComponentType()) + "[]";
+        }
+        checkAccessible(type, Modifier.PUBLIC, type);
+        return type.getCanonicalName();
+    }
+
+    private void checkAccessible(Class<?> type, int modifiers, Object element) {
+        boolean samePackage = type.getPackageName().equals(packageName);
+        boolean accessible = !Modifier.isPrivate(modifiers) && (Modifier.isPublic(modifiers) || samePackage);
+        for (Class<?> c = type; c != null && accessible; c = c.getEnclosingClass()) {
+            int m = c.getModifiers();
+            accessible = c.getCanonicalName() != null && !Modifier.isPrivate(m) && (Modifier.isPublic(m) || samePackage);
+        }
+        if (!accessible) {
+            throw new UnsupportedOperationException(element + " is not accessible from the package '" + packageName + "'");
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.application;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import app.packed.application.App;
+import app.packed.container.Assembly;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedClassLoader;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * A tool that records every class that is loaded while building and launching an application. The result is written as
+ * a class list that can be used for creating a class data sharing (CDS) archive.
+ * <p>
+ * The image is launched a number of times, so that every class needed for invoking its method handles is loaded.
+ * Only classes that are loaded from a class file can be part of a class list. Hidden classes, such as lambda forms,
+ * lambda proxies and code generated by Packed, and classes that are spun at runtime, such as {@code LambdaForm}
+ * species, are ignored. Classes defined by other class loaders than the built-in class loaders are also ignored.
+ * 
+ * <pre>
+ * java -cp app.jar:packed.jar internal.app.packed.application.ClassListRecorder com.acme.MyAssembly app.classlist [--launches 3] [--archive app.jsa]
+ * java -XX:SharedArchiveFile=app.jsa -cp app.jar:packed.jar com.acme.Main
+ * </pre>
+ * <p>
+ * If {@code --archive} is specified, a static archive is dumped by a new JVM using the class list. CDS requires that
+ * the class path only consists of JAR files, which is checked before recording. Lambda forms and species are only
+ * archived if the tool is instead run with {@code -XX:ArchiveClassesAtExit=app.jsa}, which creates a dynamic archive
+ * that also includes the regenerated lambda form holders. Classes that were already loaded when the recording started,
+ * for example, the classes of the tool itself, are not part of the class list.
+ */
+public final class ClassListRecorder {
+
+    /** The JFR event that is recorded. */
+    private static final String CLASS_LOAD = "jdk.ClassLoad";
+
+    /** Not today Satan, not today. */
+    private ClassListRecorder() {}
+
+    /**
+     * Records every class that is loaded while running the specified action.
+     * 
+     * @param action
+     *            the action to run
+     * @return the binary names of every loaded class, in the order they were loaded
+     * @throws IOException
+     *             if the recording could not be read
+     */
+    public static List<String> record(Runnable action) throws IOException {
+        LinkedHashSet<String> result = new LinkedHashSet<>();
+        Path file = Files.createTempFile("packed-classlist", ".jfr");
+        try {
+            try (Recording r = new Recording()) {
+                r.enable(CLASS_LOAD).withThreshold(Duration.ZERO).withoutStackTrace();
+                r.start();
+                try {
+                    action.run();
+                } finally {
+                    r.stop();
+                    r.dump(file);
+                }
+            }
+            for (RecordedEvent e : RecordingFile.readAllEvents(file)) {
+                if (e.getEventType().getName().equals(CLASS_LOAD)) {
+                    RecordedClass c = e.getValue("loadedClass");
+                    if (c != null && isShareable(c)) {
+                        result.add(c.getName());
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        return List.copyOf(result);
+    }
+
+    /** {@return whether or not the specified class can be part of a class list.} */
+    private static boolean isShareable(RecordedClass c) {
+        String className = c.getName();
+        // JFR names hidden classes, for example, LambdaForm$MH+0x0000000801001000.1234 or Foo$$Lambda/0x0000000801002000
+        if (className.contains("+0x") || className.indexOf('/') >= 0) {
+            return false;
+        }
+        RecordedClassLoader loader = c.getClassLoader();
+        if (loader != null && loader.getType() != null) {
+            String name = loader.getName();
+            if (!"app".equals(name) && !"platform".equals(name) && !"bootstrap".equals(name)) {
+                return false;
+            }
+        }
+        // Classes that are spun at runtime, such as LambdaForm species, have no class file that can be archived
+        return ClassLoader.getSystemResource(className.replace('.', '/') + ".class") != null;
+    }
+
+    /**
+     * Checks that the specified class path can be used for dumping an archive.
+     * 
+     * @param classPath
+     *            the class path
+     * @throws IllegalArgumentException
+     *             if the class path contains a non-empty directory
+     * @throws IOException
+     *             if a directory could not be read
+     */
+    static void checkArchivable(String classPath) throws IOException {
+        for (String s : classPath.split(File.pathSeparator)) {
+            Path p = Path.of(s);
+            if (Files.isDirectory(p)) {
+                try (Stream<Path> list = Files.list(p)) {
+                    if (list.findAny().isPresent()) {
+                        throw new IllegalArgumentException("An archive can only be created if the class path consists of JAR files, directory = " + p);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a class list.
+     * 
+     * @param file
+     *            the file to write to
+     * @param classes
+     *            the binary names of the classes
+     * @throws IOException
+     *             if the file could not be written
+     */
+    public static void write(Path file, List<String> classes) throws IOException {
+        ArrayList<String> lines = new ArrayList<>(classes.size() + 1);
+        lines.add("# Generated by " + ClassListRecorder.class.getSimpleName() + ", for use with -XX:SharedClassListFile");
+        for (String s : classes) {
+            lines.add(s.replace('.', '/'));
+        }
+        Files.write(file, lines);
+    }
+
+    /**
+     * Dumps a static archive in a new JVM, using the same class path as this JVM.
+     * 
+     * @param classList
+     *            the class list
+     * @param archive
+     *            the archive to create
+     * @throws IOException
+     *             if the archive could not be created
+     * @throws InterruptedException
+     *             if interrupted while waiting for the JVM
+     */
+    public static void dumpArchive(Path classList, Path archive) throws IOException, InterruptedException {
+        Optional<String> java = ProcessHandle.current().info().command();
+        String cmd = java.orElse(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        Process p = new ProcessBuilder(cmd, "-Xshare:dump", "-XX:SharedClassListFile=" + classList, "-XX:SharedArchiveFile=" + archive, "-cp",
+                System.getProperty("java.class.path")).inheritIO().start();
+        int exitCode = p.waitFor();
+        if (exitCode != 0) {
+            throw new IOException("Failed to dump archive, exit code = " + exitCode);
+        }
+    }
+
+    /**
+     * Records the classes of an application.
+     * 
+     * @param args
+     *            the name of an assembly class with a no-argument constructor, the class list file, and optionally
+     *            {@code --launches <n>} and {@code --archive <file>}
+     * @throws Exception
+     *             if the classes could not be recorded
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: ClassListRecorder <assembly class> <class list file> [--launches <n>] [--archive <file>]");
+            System.exit(1);
+        }
+        Path classList = Path.of(args[1]);
+        int launches = 3;
+        Path archive = null;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+            case "--launches" -> launches = Integer.parseInt(args[++i]);
+            case "--archive" -> archive = Path.of(args[++i]);
+            default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (archive != null) {
+            try {
+                checkArchivable(System.getProperty("java.class.path"));
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                System.exit(1);
+            }
+        }
+
+        Constructor<?> constructor = Class.forName(args[0], false, ClassLoader.getSystemClassLoader()).getDeclaredConstructor();
+        int n = launches;
+        List<String> classes = record(() -> {
+            Assembly assembly;
+            try {
+                assembly = (Assembly) constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Could not create an instance of " + args[0], e);
+            }
+            App.Launcher image = App.newImage(assembly);
+            for (int i = 0; i < n; i++) {
+                image.run();
+            }
+        });
+
+        write(classList, classes);
+        System.out.println("Wrote " + classes.size() + " classes to " + classList);
+        if (archive != null) {
+            dumpArchive(classList, archive);
+        }
+    }
+}
@@ -15,12 +15,19 @@
  */
 package internal.app.packed.application;
 
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
 import jdk.jfr.StackTrace;
 
-/**
- *
- */
+/** An event that is emitted when an application has been code generated. */
+@Name("app.packed.Codegen")
+@Label("Application Codegen")
+@Category({ "Packed", "Build" })
 @StackTrace(false)
 public class CodegenEvent extends jdk.jfr.Event {
-    
+
+    /** The name of the application. */
+    @Label("Application Name")
+    public String applicationName;
 }
@@ -16,17 +16,24 @@
 package internal.app.packed.application;
 
 import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 
 import app.packed.framework.Nullable;
 import internal.app.packed.bean.BeanSetup;
 import internal.app.packed.lifetime.LifetimeAccessor;
-import internal.app.packed.util.ThrowableUtil;
+import internal.app.packed.lifetime.PackedExtensionContext;
+import internal.app.packed.util.LookupUtil;
 
 /**
  *
  */
 public class EntryPointSetup {
 
+    /** A method handle for calling {@link LifetimeAccessor#read(PackedExtensionContext)}. */
+    private static final MethodHandle MH_READ = LookupUtil.lookupVirtualPrivate(MethodHandles.lookup(), LifetimeAccessor.class, "read",
+            Object.class, PackedExtensionContext.class);
+
     // sync entrypoint
     @Nullable
     private MainThreadOfControl mainThread;
@@ -43,32 +50,30 @@ public class EntryPointSetup {
         return m;
     }
 
-    public void enter(ApplicationInitializationContext launchContext) {
-
-        // EntryPoint
-        if (hasMain()) {
-            MainThreadOfControl l = mainThread();
-            if (!l.hasExecutionBlock()) {
-                return; // runnint as deamon
-            }
-
-            try {
-                LifetimeAccessor sa = l.cs.lifetimePoolAccessor;
-                if (sa != null && !l.isStatic) {
-                    Object o = sa.read(launchContext.pool());
-                    l.methodHandle.invoke(o);
-                } else {
-                    l.methodHandle.invoke();
-                }
-
-            } catch (Throwable e) {
-                throw ThrowableUtil.orUndeclared(e);
-            }
+    /**
+     * Generates a method handle that invokes the main entry point.
+     * 
+     * @return a method handle of type (PackedExtensionContext)void, or null if there is no main entry point with an
+     *         execution block
+     */
+    @Nullable
+    public MethodHandle generateMethodHandle() {
+        if (!hasMain()) {
+            return null;
+        }
+        MainThreadOfControl l = mainThread();
+        if (!l.hasExecutionBlock()) {
+            return null; // runnint as deamon
         }
-        // todo run execution block
-
-        // shutdown
 
+        LifetimeAccessor sa = l.cs.lifetimePoolAccessor;
+        if (sa != null && !l.isStatic) {
+            MethodHandle mh = l.methodHandle.asType(MethodType.methodType(void.class, Object.class));
+            return MethodHandles.filterArguments(mh, 0, MH_READ.bindTo(sa));
+        } else {
+            MethodHandle mh = l.methodHandle.asType(MethodType.methodType(void.class));
+            return MethodHandles.dropArguments(mh, 0, PackedExtensionContext.class);
+        }
     }
 
     public static class MainThreadOfControl {
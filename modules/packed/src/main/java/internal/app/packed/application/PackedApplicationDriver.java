@@ -21,6 +21,7 @@ import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodHandles.Lookup;
 import java.lang.invoke.MethodType;
+import java.nio.file.Path;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
@@ -38,7 +39,10 @@ import app.packed.framework.Nullable;
 import app.packed.lifetime.sandbox.ManagedLifetimeController;
 import app.packed.operation.Op;
 import app.packed.service.ServiceLocator;
+import internal.app.packed.container.AssemblyModel;
 import internal.app.packed.container.AssemblySetup;
+import internal.app.packed.container.CompositeWirelet;
+import internal.app.packed.container.WireletWrapper;
 import internal.app.packed.lifetime.sandbox2.OldLifetimeKind;
 import internal.app.packed.operation.PackedOp;
 import internal.app.packed.util.ClassUtil;
@@ -54,6 +58,9 @@ public final class PackedApplicationDriver<A> implements ApplicationDriver<A> {
 
     final Set<Class<? extends Extension<?>>> bannedExtensions;
 
+    /** Images of applications launched from cacheable assemblies. */
+    public final ApplicationImageCache imageCache = new ApplicationImageCache(ApplicationImageCache.DEFAULT_MAX_SIZE);
+
     private final OldLifetimeKind lifetimeKind;
 
     /** The method handle used for creating new application instances. */
@@ -118,14 +125,28 @@ public final class PackedApplicationDriver<A> implements ApplicationDriver<A> {
     /** {@inheritDoc} */
     @Override
     public A launch(Assembly assembly, Wirelet... wirelets) {
+        requireNonNull(assembly, "assembly is null");
+        ApplicationImageCache.Key key = ApplicationImageCache.keyOf(assembly, wirelets);
+        if (key != null) {
+            PackedApplicationLauncher launcher = imageCache.get(key);
+            if (launcher != null) {
+                // The wirelets have already been applied when building the image
+                return launcher.launchFromImage(this, new Wirelet[0]);
+            }
+            // Build with the same goal as an uncached launch, so extensions cannot tell whether or not caching is used.
+            // Build outside of the cache lock, concurrent misses might build the same application more than once
+            AssemblySetup as = new AssemblySetup(this, BuildGoal.LAUNCH, assembly, wirelets);
+            as.build();
+            imageCache.put(key, as.application.launcher);
+            return as.application.launcher.launchImmediately(this);
+        }
+
         // Build the application
         AssemblySetup as = new AssemblySetup(this, BuildGoal.LAUNCH, assembly, wirelets);
         as.build();
 
         // Launch the application
-        PackedApplicationLauncher launcher = as.application.launcher;
-        // as= null? For GC?
-        return launcher.launchImmediately(this);
+        return as.application.launcher.launchImmediately(this);
     }
 
     /**
@@ -146,8 +167,53 @@ public final class PackedApplicationDriver<A> implements ApplicationDriver<A> {
         AssemblySetup as = new AssemblySetup(this, BuildGoal.NEW_IMAGE, assembly, wirelets);
         as.build();
 
-        // Create a reusable launcher
-        return new ReusableApplicationImage<>(this, as.application);
+        // Create a reusable launcher, the image only retains what is needed for launching the application
+        return new ReusableApplicationImage<>(this, as.application.launcher);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ApplicationLauncher<A> newImage(Path launchPlan, Assembly assembly, Wirelet... wirelets) {
+        requireNonNull(launchPlan, "launchPlan is null");
+        requireNonNull(assembly, "assembly is null");
+        requireNonNull(wirelets, "wirelets is null");
+        // Plans are matched on the assembly class only. So the assembly must be stateless, and as build wirelets are not
+        // part of the plan, we always build the application if any are specified
+        boolean persistable = wirelets.length == 0 && AssemblyModel.of(assembly.getClass()).isCacheable;
+        if (persistable && lifetimeKind == OldLifetimeKind.UNMANAGED && wirelet == null) {
+            PackedApplicationLauncher launcher = PersistedLaunchPlan.read(launchPlan, assembly.getClass());
+            if (launcher != null) {
+                return new ReusableApplicationImage<>(this, launcher);
+            }
+        }
+
+        AssemblySetup as = new AssemblySetup(this, BuildGoal.NEW_IMAGE, assembly, wirelets);
+        as.build();
+        if (persistable) {
+            PersistedLaunchPlan.write(as.application, launchPlan);
+        }
+        return new ReusableApplicationImage<>(this, as.application.launcher);
+    }
+
+    /**
+     * Builds an application and generates the Java source of a class that constructs it.
+     * 
+     * @param className
+     *            the fully qualified name of the class to generate
+     * @param assembly
+     *            the assembly of the application
+     * @param wirelets
+     *            optional wirelets
+     * @return the source of the class
+     * @throws UnsupportedOperationException
+     *             if source cannot be generated for the application
+     * @see BuildGoal#GENERATE_SOURCE
+     */
+    public String generateSource(String className, Assembly assembly, Wirelet... wirelets) {
+        requireNonNull(className, "className is null");
+        AssemblySetup as = new AssemblySetup(this, BuildGoal.GENERATE_SOURCE, assembly, wirelets);
+        as.build();
+        return ApplicationSourceGenerator.generate(as.application, className);
     }
 
     /**
@@ -176,7 +242,7 @@ public final class PackedApplicationDriver<A> implements ApplicationDriver<A> {
         as.build();
 
         // Create single shop image
-        return new SingleShotApplicationImage<>(this, as.application);
+        return new SingleShotApplicationImage<>(this, as.application.launcher);
     }
 
     /** {@inheritDoc} */
@@ -326,8 +392,8 @@ public final class PackedApplicationDriver<A> implements ApplicationDriver<A> {
 
         private final AtomicReference<ReusableApplicationImage<A>> ref;
 
-        SingleShotApplicationImage(PackedApplicationDriver<A> driver, ApplicationSetup application) {
-            ref = new AtomicReference<>(new ReusableApplicationImage<>(driver, application));
+        SingleShotApplicationImage(PackedApplicationDriver<A> driver, PackedApplicationLauncher launcher) {
+            ref = new AtomicReference<>(new ReusableApplicationImage<>(driver, launcher));
         }
 
         /** {@inheritDoc} */
@@ -346,13 +412,13 @@ public final class PackedApplicationDriver<A> implements ApplicationDriver<A> {
     /**
      * Implementation of {@link ApplicationLauncher} used by {@link ApplicationDriver#newImage(Assembly, Wirelet...)}.
      */
-    public /* primitive */ record ReusableApplicationImage<A> (PackedApplicationDriver<A> driver, ApplicationSetup application)
+    public /* primitive */ record ReusableApplicationImage<A> (PackedApplicationDriver<A> driver, PackedApplicationLauncher launcher)
             implements ApplicationLauncher<A> {
 
         /** {@inheritDoc} */
         @Override
         public A launch(Wirelet... wirelets) {
-            return application.launcher.launchFromImage(driver, wirelets);
+            return launcher.launchFromImage(driver, wirelets);
         }
     }
 
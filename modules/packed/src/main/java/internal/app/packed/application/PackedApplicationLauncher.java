@@ -17,23 +17,105 @@ package internal.app.packed.application;
 
 import static java.util.Objects.requireNonNull;
 
+import java.lang.invoke.MethodHandle;
+
+import app.packed.application.BuildGoal;
 import app.packed.container.Wirelet;
+import app.packed.framework.Nullable;
 import internal.app.packed.container.CompositeWirelet;
 import internal.app.packed.container.WireletWrapper;
+import internal.app.packed.lifetime.ContainerLifetimeSetup;
+import internal.app.packed.lifetime.LifecyclePlan;
+import internal.app.packed.lifetime.LifetimeAccessor.DynamicAccessor;
+import internal.app.packed.service.PackedServiceLocator.Index;
 
 /**
- *
+ * Everything that is needed for launching an application.
+ * <p>
+ * A launcher is created once an application has been code generated, and only holds the result of the code
+ * generation. It does not reference the configuration of the application, so an image that is retained for the
+ * lifetime of a process does not keep the application's containers, beans, operations and service managers reachable.
  */
-public class PackedApplicationLauncher {
+public final class PackedApplicationLauncher {
+
+    /**
+     * A method handle of type (PackedExtensionContext)void that invokes the main entry point, or null if there is no main
+     * entry point with an execution block.
+     */
+    @Nullable
+    public final MethodHandle entryPoint;
+
+    /** Whether or not the application is launched from an image. */
+    final boolean fromImage;
+
+    /** Whether or not the application has a main entry point. */
+    public final boolean hasMain;
+
+    /** A method handle of type (PackedExtensionContext)void that populates the arena and initializes every bean. */
+    final MethodHandle initializer;
+
+    /** The start and stop operations of the application, or null if there are none. */
+    @Nullable
+    public final LifecyclePlan lifecycle;
 
-    private final ApplicationSetup application;
+    /** The name of the application. */
+    final String name;
+
+    /** Where the managed lifetime is stored in the arena, or null if the application has an unmanaged lifetime. */
+    @Nullable
+    final DynamicAccessor runtimeAccessor;
+
+    /** The service locator index. */
+    final Index services;
+
+    /** The shared segment of the arena, referenced by every launch. */
+    final Object[] shared;
+
+    /** The size of the arena. */
+    final int size;
+
+    PackedApplicationLauncher(ApplicationSetup application) {
+        ContainerLifetimeSetup lifetime = application.container.lifetime;
+        EntryPointSetup ep = application.entryPoints;
+        this.entryPoint = ep == null ? null : ep.generateMethodHandle();
+        this.fromImage = application.goal != BuildGoal.LAUNCH;
+        this.hasMain = ep != null && ep.hasMain();
+        this.initializer = requireNonNull(lifetime.initializer);
+        this.lifecycle = lifetime.lifecycle;
+        this.name = requireNonNull(application.container.name);
+        this.runtimeAccessor = application.runtimeAccessor;
+        this.services = application.container.sm.locatorIndex();
+        this.shared = lifetime.pool.sharedObjects();
+        this.size = lifetime.pool.size();
+    }
 
-    public PackedApplicationLauncher(ApplicationSetup application) {
-        this.application = application;
+    /**
+     * Creates a launcher for an unmanaged application without any entry points or lifecycle operations.
+     * 
+     * @param name
+     *            the name of the application
+     * @param size
+     *            the size of the arena
+     * @param initializer
+     *            a method handle of type (PackedExtensionContext)void that populates the arena
+     * @param services
+     *            the service locator index
+     */
+    PackedApplicationLauncher(String name, int size, MethodHandle initializer, Index services) {
+        this.entryPoint = null;
+        this.fromImage = true;
+        this.hasMain = false;
+        this.initializer = requireNonNull(initializer);
+        this.lifecycle = null;
+        this.name = requireNonNull(name);
+        this.runtimeAccessor = null;
+        this.services = requireNonNull(services);
+        this.shared = new Object[0];
+        this.size = size;
     }
 
     public <A> A launchImmediately(PackedApplicationDriver<A> driver) {
-        return ApplicationInitializationContext.launch(driver, application, null);
+        return ApplicationInitializationContext.launch(driver, this, null);
     }
 
     public <A> A launchFromImage(PackedApplicationDriver<A> driver, Wirelet[] wirelets) {
@@ -44,6 +126,6 @@ public class PackedApplicationLauncher {
         if (wirelets.length > 0) {
             wrapper = new WireletWrapper(CompositeWirelet.flattenAll(wirelets));
         }
-        return ApplicationInitializationContext.launch(driver, application, wrapper);
+        return ApplicationInitializationContext.launch(driver, this, wrapper);
     }
 }
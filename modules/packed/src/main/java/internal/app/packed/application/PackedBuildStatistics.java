@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.application;
+
+import java.time.Duration;
+import java.util.HashSet;
+
+import app.packed.application.BuildStatistics;
+import internal.app.packed.bean.BeanSetup;
+import internal.app.packed.container.ContainerSetup;
+import internal.app.packed.operation.OperationSetup;
+
+/** Build statistics that are recorded by a single application while it is being built. */
+public final class PackedBuildStatistics implements BuildStatistics {
+
+    /** The number of nanoseconds spent in each phase. */
+    private long assembleNanos, closeNanos, cycleCheckNanos;
+
+    /** The number of nanoseconds spent generating code, is set by {@link ApplicationSetup#finish()}. */
+    long codegenNanos;
+
+    /** The number of distinct bean classes that was introspected, or reused from an earlier introspection. */
+    private int introspected, cached;
+
+    /** The bean classes that have been looked up. */
+    private final HashSet<Class<?>> lookedUp = new HashSet<>();
+
+    /** The number of method handles generated for operations. */
+    private int methodHandles;
+
+    /** Counts that are calculated via {@link #countNodes(ContainerSetup)} once the application has been closed. */
+    private int containers, beans, operations, bindings;
+
+    /** The size of the root lifetime's per-launch arena, calculated once the application has been closed. */
+    private int arenaSize;
+
+    /** {@inheritDoc} */
+    @Override
+    public int arenaSize() {
+        return arenaSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Duration assembleTime() {
+        return Duration.ofNanos(assembleNanos);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int beanCount() {
+        return beans;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int bindingCount() {
+        return bindings;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int cachedClassCount() {
+        return cached;
+    }
+
+    /**
+     * Records that a bean class has been looked up. A class is only counted the first time it is looked up.
+     *
+     * @param beanClass
+     *            the bean class
+     * @param wasCached
+     *            whether or not the model of the class was reused from an earlier introspection
+     */
+    public void classLookedUp(Class<?> beanClass, boolean wasCached) {
+        if (!lookedUp.add(beanClass)) {
+            return;
+        } else if (wasCached) {
+            cached++;
+        } else {
+            introspected++;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Duration closeTime() {
+        return Duration.ofNanos(closeNanos);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Duration codegenTime() {
+        return Duration.ofNanos(codegenNanos);
+    }
+
+    /**
+     * Records the time spent in each phase of closing the root assembly.
+     *
+     * @param assembleNanos
+     *            the time spent running the assemblies
+     * @param cycleCheckNanos
+     *            the time spent checking for dependency cycles
+     * @param closeNanos
+     *            the time spent closing the assemblies and extensions
+     */
+    public void rootAssemblyClosed(long assembleNanos, long cycleCheckNanos, long closeNanos) {
+        this.assembleNanos = assembleNanos;
+        this.cycleCheckNanos = cycleCheckNanos;
+        this.closeNanos = closeNanos;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int containerCount() {
+        return containers;
+    }
+
+    /**
+     * Counts the containers, beans, operations and bindings of the application. Is invoked once the application has been
+     * closed.
+     *
+     * @param root
+     *            the root container of the application
+     */
+    void countNodes(ContainerSetup root) {
+        containers = beans = operations = bindings = 0;
+        countNodes0(root);
+        arenaSize = root.lifetime.pool.size();
+    }
+
+    private void countNodes0(ContainerSetup container) {
+        containers++;
+        for (BeanSetup b = container.beanFirst; b != null; b = b.nextBean) {
+            beans++;
+            for (OperationSetup o : b.operations) {
+                operations++;
+                bindings += o.bindings.length;
+            }
+        }
+        for (ContainerSetup c = container.treeFirstChild; c != null; c = c.treeNextSiebling) {
+            countNodes0(c);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Duration cycleCheckTime() {
+        return Duration.ofNanos(cycleCheckNanos);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int introspectedClassCount() {
+        return introspected;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int methodHandleCount() {
+        return methodHandles;
+    }
+
+    /** Records that a method handle has been generated for an operation. */
+    public void methodHandleGenerated() {
+        methodHandles++;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int operationCount() {
+        return operations;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "BuildStatistics[containers=" + containers + ", beans=" + beans + ", operations=" + operations + ", bindings=" + bindings
+                + ", methodHandles=" + methodHandles + ", arenaSize=" + arenaSize + ", introspected=" + introspected + ", cached=" + cached
+                + ", assemble=" + assembleTime() + ", close=" + closeTime() + ", cycleCheck=" + cycleCheckTime() + ", codegen=" + codegenTime() + "]";
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.application;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import app.packed.framework.Nullable;
+import app.packed.service.Key;
+import internal.app.packed.application.WiringPlan.Step;
+import internal.app.packed.container.ContainerSetup;
+import internal.app.packed.lifetime.ContainerLifetimeSetup;
+import internal.app.packed.lifetime.LifetimeAccessor.DynamicAccessor;
+import internal.app.packed.lifetime.PackedExtensionContext;
+import internal.app.packed.lifetime.sandbox2.OldLifetimeKind;
+import internal.app.packed.service.PackedServiceLocator.Index;
+
+/**
+ * A launch plan of an application that has been persisted to a file, so it can be launched by a new process without
+ * building the application.
+ * <p>
+ * The plan contains the layout of the lifetime arena, the constructors and methods that populate it, and initialize
+ * the beans, in the order they are invoked. Where each argument is read from the arena. As well as the index of the
+ * application's service locator. Loading a plan only requires resolving these members, no assemblies are run and no
+ * classes are introspected.
+ * <p>
+ * Only unmanaged applications whose launch can be described by a {@link WiringPlan} can be persisted. This excludes,
+ * for example, applications with entry points, beans installed as instances, lazy and prototype beans, services with
+ * qualifiers, and extensions that generate code. Such applications are always built normally.
+ * <p>
+ * Every plan has a fingerprint of the runtime, the class path and the class files of every class it references. Which
+ * includes every assembly, and its super classes, and every extension used when building the application. If the
+ * fingerprint of a persisted plan does not match the current process, the plan is ignored and the application is built
+ * normally.
+ */
+final class PersistedLaunchPlan {
+
+    /** The magic number of a plan file. */
+    private static final int MAGIC = 0x504B4C50;
+
+    /** The version of the file format. */
+    private static final int VERSION = 1;
+
+    /** Step kinds. */
+    private static final byte CONSTRUCTOR = 0, METHOD = 1;
+
+    /** Not today Satan, not today. */
+    private PersistedLaunchPlan() {}
+
+    /**
+     * Reads a persisted plan.
+     * 
+     * @param file
+     *            the file to read the plan from
+     * @param assemblyClass
+     *            the class of the assembly of the application, used for loading classes
+     * @return a launcher for the plan, or null if the file does not exist or the plan is no longer valid
+     */
+    @Nullable
+    static PackedApplicationLauncher read(Path file, Class<?> assemblyClass) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            ClassLoader loader = assemblyClass.getClassLoader();
+            Class<?>[] classes = new Class<?>[in.readInt()];
+            for (int i = 0; i < classes.length; i++) {
+                // Resolves the class without initializing it
+                classes[i] = MethodType.fromMethodDescriptorString("()" + in.readUTF(), loader).returnType();
+            }
+            if (!Arrays.equals(in.readNBytes(32), fingerprint(classes))) {
+                return null; // The runtime or some of the classes have changed since the plan was written
+            }
+
+            String name = in.readUTF();
+            int size = in.readInt();
+            ArrayList<MethodHandle> steps = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                steps.add(readStep(in, classes));
+            }
+            LinkedHashMap<Key<?>, MethodHandle> services = new LinkedHashMap<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                Class<?> key = classes[in.readInt()];
+                services.put(Key.of(key), reader(in.readInt(), key));
+            }
+            return new PackedApplicationLauncher(name, size, ContainerLifetimeSetup.fuse(steps), new Index(services));
+        } catch (IOException | ReflectiveOperationException | RuntimeException e) {
+            // A plan that cannot be read is treated like a missing plan
+            return null;
+        }
+    }
+
+    private static MethodHandle readStep(DataInputStream in, Class<?>[] classes) throws IOException, ReflectiveOperationException {
+        byte kind = in.readByte();
+        Class<?> declaringClass = classes[in.readInt()];
+        String methodName = kind == METHOD ? in.readUTF() : null;
+        Class<?>[] parameterTypes = new Class<?>[in.readInt()];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            parameterTypes[i] = classes[in.readInt()];
+        }
+        int receiver = in.readInt();
+        int[] arguments = new int[parameterTypes.length + (receiver < 0 ? 0 : 1)];
+        int offset = 0;
+        if (receiver >= 0) {
+            arguments[offset++] = receiver;
+        }
+        for (int i = 0; i < parameterTypes.length; i++) {
+            arguments[offset + i] = in.readInt();
+        }
+        int store = in.readInt();
+
+        Lookup lookup = MethodHandles.privateLookupIn(declaringClass, MethodHandles.lookup());
+        MethodHandle mh;
+        if (kind == CONSTRUCTOR) {
+            mh = lookup.findConstructor(declaringClass, MethodType.methodType(void.class, parameterTypes));
+        } else {
+            mh = lookup.unreflect(declaringClass.getDeclaredMethod(methodName, parameterTypes));
+        }
+
+        // Read every argument from the arena, (*)R -> (PackedExtensionContext)R
+        for (int i = arguments.length - 1; i >= 0; i--) {
+            mh = MethodHandles.collectArguments(mh, i, reader(arguments[i], mh.type().parameterType(i)));
+        }
+        if (arguments.length == 0) {
+            mh = MethodHandles.dropArguments(mh, 0, PackedExtensionContext.class);
+        } else {
+            mh = MethodHandles.permuteArguments(mh, MethodType.methodType(mh.type().returnType(), PackedExtensionContext.class), new int[arguments.length]);
+        }
+
+        if (store >= 0) {
+            mh = mh.asType(MethodType.methodType(Object.class, PackedExtensionContext.class));
+            return MethodHandles.foldArguments(new DynamicAccessor(Object.class, store).storeHandle(), mh);
+        }
+        return mh.asType(MethodType.methodType(void.class, PackedExtensionContext.class));
+    }
+
+    /** {@return a method handle of type (PackedExtensionContext)T that reads the specified slot of the arena.} */
+    private static MethodHandle reader(int slot, Class<?> type) {
+        MethodHandle mh = MethodHandles.insertArguments(PackedExtensionContext.MH_CONSTANT_POOL_READER, 1, slot);
+        return mh.asType(MethodType.methodType(type, PackedExtensionContext.class));
+    }
+
+    /**
+     * Writes a plan of the specified application, if the application can be persisted. Failures to write the plan are
+     * ignored, as the plan is only an optimization.
+     * 
+     * @param application
+     *            the application, must have been code generated
+     * @param file
+     *            the file to write the plan to
+     * @return whether or not a plan was written
+     */
+    static boolean write(ApplicationSetup application, Path file) {
+        // Applications with a managed lifetime needs a runtime that is created when launching
+        if (application.driver.lifetimeKind() != OldLifetimeKind.UNMANAGED || application.driver.wirelet != null) {
+            return false;
+        }
+        Writer w;
+        try {
+            w = new Writer(WiringPlan.of(application));
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+        if (!w.indexClasses()) {
+            return false;
+        }
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                w.writeTo(out);
+            }
+            // Concurrent processes might race to write the plan, they will all write identical plans
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Computes the fingerprint of a plan.
+     * 
+     * @param classes
+     *            every class referenced by the plan
+     * @return the fingerprint
+     */
+    private static byte[] fingerprint(Class<?>[] classes) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        update(md, Runtime.version().toString());
+        update(md, System.getProperty("java.class.path", ""));
+        update(md, System.getProperty("jdk.module.path", ""));
+        updateClassFile(md, PersistedLaunchPlan.class);
+        for (Class<?> c : classes) {
+            updateClassFile(md, c);
+        }
+        return md.digest();
+    }
+
+    private static void update(MessageDigest md, String s) {
+        md.update(s.getBytes(StandardCharsets.UTF_8));
+        md.update((byte) 0);
+    }
+
+    private static void updateClassFile(MessageDigest md, Class<?> c) throws IOException {
+        update(md, c.descriptorString());
+        ClassLoader loader = c.getClassLoader();
+        // Classes from the JDK are covered by the runtime version
+        if (c.isPrimitive() || c.isArray() || loader == null || loader == ClassLoader.getPlatformClassLoader()) {
+            return;
+        }
+        String name = c.getName();
+        try (InputStream in = c.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")) {
+            if (in == null) {
+                throw new IOException("Could not read the class file of " + c);
+            }
+            md.update(in.readAllBytes());
+        }
+    }
+
+    /** Writes a plan to a stream. */
+    private static final class Writer {
+
+        /** Every class referenced by the plan. */
+        private final LinkedHashMap<Class<?>, Integer> classes = new LinkedHashMap<>();
+
+        /** The wiring of the application. */
+        private final WiringPlan plan;
+
+        private Writer(WiringPlan plan) {
+            this.plan = plan;
+        }
+
+        /** {@return whether or not every member of the plan can be accessed when the plan is read.} */
+        private boolean indexClasses() {
+            for (Step s : plan.initialize) {
+                Class<?> declaringClass = s.member().getDeclaringClass();
+                try {
+                    MethodHandles.privateLookupIn(declaringClass, MethodHandles.lookup());
+                } catch (IllegalAccessException e) {
+                    return false;
+                }
+                classIndex(declaringClass);
+                for (Class<?> c : s.member().getParameterTypes()) {
+                    classIndex(c);
+                }
+            }
+            for (Class<?> c : plan.services.keySet()) {
+                classIndex(c);
+            }
+            indexContainer(plan.application.container);
+            return true;
+        }
+
+        /** Indexes the assembly and the extensions of the specified container and all of its descendants. */
+        private void indexContainer(ContainerSetup container) {
+            classHierarchyIndex(container.assembly.assembly.getClass());
+            for (Class<?> c : container.extensions.keySet()) {
+                classHierarchyIndex(c);
+            }
+            for (Object o : container.children.values()) {
+                if (o instanceof ContainerSetup child) {
+                    indexContainer(child);
+                }
+            }
+        }
+
+        private void classHierarchyIndex(Class<?> c) {
+            for (; c != Object.class; c = c.getSuperclass()) {
+                classIndex(c);
+            }
+        }
+
+        private int classIndex(Class<?> c) {
+            return classes.computeIfAbsent(c, k -> classes.size());
+        }
+
+        private void writeTo(DataOutputStream out) throws IOException {
+            ApplicationSetup application = plan.application;
+            Class<?>[] table = classes.keySet().toArray(Class<?>[]::new);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(table.length);
+            for (Class<?> c : table) {
+                out.writeUTF(c.descriptorString());
+            }
+            out.write(fingerprint(table));
+            out.writeUTF(application.container.name);
+            out.writeInt(plan.slots.length);
+            out.writeInt(plan.initialize.size());
+            for (Step s : plan.initialize) {
+                out.writeByte(s.member() instanceof Constructor ? CONSTRUCTOR : METHOD);
+                out.writeInt(classes.get(s.member().getDeclaringClass()));
+                if (s.member() instanceof Method m) {
+                    out.writeUTF(m.getName());
+                }
+                Class<?>[] parameterTypes = s.member().getParameterTypes();
+                out.writeInt(parameterTypes.length);
+                for (Class<?> c : parameterTypes) {
+                    out.writeInt(classes.get(c));
+                }
+                out.writeInt(s.receiver());
+                for (int a : s.arguments()) {
+                    out.writeInt(a);
+                }
+                out.writeInt(s.store());
+            }
+            out.writeInt(plan.services.size());
+            for (Map.Entry<Class<?>, Integer> e : plan.services.entrySet()) {
+                out.writeInt(classes.get(e.getKey()));
+                out.writeInt(e.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.application;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import app.packed.application.App;
+import app.packed.application.ApplicationMirror;
+import app.packed.bean.BeanMirror;
+import app.packed.container.Assembly;
+import app.packed.container.ContainerMirror;
+import app.packed.extension.Extension;
+import app.packed.operation.OperationMirror;
+import app.packed.operation.OperationTarget;
+
+/**
+ * The reflection metadata that GraalVM native image needs for running an application.
+ * <p>
+ * The metadata is computed from the mirror of an application and covers every class that is introspected when the
+ * application is built. And every constructor, method and field that is unreflected into a method handle by the
+ * operations of its beans. Together with the constructor of every extension that is used.
+ * <p>
+ * The metadata can be written both in the legacy {@code reflect-config.json} format and in the
+ * {@code reachability-metadata.json} format used by newer versions of GraalVM. No GraalVM installation is needed for
+ * generating it.
+ * 
+ * <pre>
+ * java -cp app.jar:packed.jar internal.app.packed.application.ReachabilityMetadata com.acme.MyAssembly META-INF/native-image/com.acme/app
+ * </pre>
+ */
+public final class ReachabilityMetadata {
+
+    /** Every type, by name. */
+    private final TreeMap<String, TypeEntry> types = new TreeMap<>();
+
+    /**
+     * Registers a constructor or method.
+     * 
+     * @param executable
+     *            the executable to register
+     */
+    public void add(Executable executable) {
+        String name = executable instanceof Constructor ? "<init>" : executable.getName();
+        List<String> parameterTypes = Arrays.stream(executable.getParameterTypes()).map(Class::getTypeName).toList();
+        TypeEntry e = entry(executable.getDeclaringClass());
+        if (e != null) {
+            e.methods.add(new MethodEntry(name, parameterTypes));
+        }
+    }
+
+    /**
+     * Registers a field.
+     * 
+     * @param field
+     *            the field to register
+     */
+    public void add(Field field) {
+        TypeEntry e = entry(field.getDeclaringClass());
+        if (e != null) {
+            e.fields.add(field.getName());
+        }
+    }
+
+    /**
+     * Registers a class that is introspected, together with every super class that is not part of the JDK.
+     * 
+     * @param clazz
+     *            the class to register
+     */
+    public void addIntrospected(Class<?> clazz) {
+        for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+            if (c.getModule() == Object.class.getModule()) {
+                return;
+            }
+            TypeEntry e = entry(c);
+            if (e == null) {
+                return;
+            }
+            e.introspected = true;
+        }
+    }
+
+    private void add(OperationTarget target) {
+        // Functions and method handles are never unreflected
+        if (target instanceof OperationTarget.OfConstructorInvoke c) {
+            add(c.constructor());
+        } else if (target instanceof OperationTarget.OfMethodInvoke m) {
+            add(m.method());
+        } else if (target instanceof OperationTarget.OfFieldAccess f) {
+            add(f.field());
+        }
+    }
+
+    private void addContainer(ContainerMirror container) {
+        for (Class<? extends Extension<?>> extensionType : container.extensionTypes()) {
+            for (Constructor<?> constructor : extensionType.getDeclaredConstructors()) {
+                add(constructor);
+            }
+        }
+        for (BeanMirror b : container.beans().toList()) {
+            if (b.beanClass() != void.class) {
+                addIntrospected(b.beanClass());
+            }
+            for (OperationMirror o : b.operations().toList()) {
+                add(o.target());
+            }
+        }
+        container.children().forEach(this::addContainer);
+    }
+
+    private TypeEntry entry(Class<?> clazz) {
+        // Hidden classes, such as lambdas, cannot be registered
+        if (clazz.isHidden()) {
+            return null;
+        }
+        return types.computeIfAbsent(clazz.getTypeName(), TypeEntry::new);
+    }
+
+    /** {@return the metadata in the {@code reachability-metadata.json} format.} */
+    public String toReachabilityMetadata() {
+        StringBuilder sb = new StringBuilder("{\n  \"reflection\": [");
+        appendTypes(sb, "type", false, "    ");
+        return sb.append("\n  ]\n}\n").toString();
+    }
+
+    /** {@return the metadata in the legacy {@code reflect-config.json} format.} */
+    public String toReflectConfig() {
+        StringBuilder sb = new StringBuilder("[");
+        appendTypes(sb, "name", true, "  ");
+        return sb.append("\n]\n").toString();
+    }
+
+    private void appendTypes(StringBuilder sb, String nameKey, boolean legacy, String indent) {
+        String separator = "";
+        for (TypeEntry e : types.values()) {
+            sb.append(separator).append('\n').append(indent).append("{\n");
+            sb.append(indent).append("  ").append(quote(nameKey)).append(": ").append(quote(e.name));
+            if (e.introspected) {
+                // In the new format, registering a type allows its members to be queried. The legacy format has no query
+                // only form for fields, fields that are accessed are registered individually
+                if (legacy) {
+                    sb.append(",\n").append(indent).append("  \"queryAllDeclaredConstructors\": true");
+                    sb.append(",\n").append(indent).append("  \"queryAllDeclaredMethods\": true");
+                }
+            }
+            if (!e.fields.isEmpty()) {
+                sb.append(",\n").append(indent).append("  \"fields\": [");
+                String s = "";
+                for (String f : e.fields) {
+                    sb.append(s).append("{ \"name\": ").append(quote(f)).append(" }");
+                    s = ", ";
+                }
+                sb.append(']');
+            }
+            if (!e.methods.isEmpty()) {
+                sb.append(",\n").append(indent).append("  \"methods\": [");
+                String s = "";
+                for (MethodEntry m : e.methods) {
+                    sb.append(s).append('\n').append(indent).append("    { \"name\": ").append(quote(m.name)).append(", \"parameterTypes\": [");
+                    String p = "";
+                    for (String t : m.parameterTypes) {
+                        sb.append(p).append(quote(t));
+                        p = ", ";
+                    }
+                    sb.append("] }");
+                    s = ",";
+                }
+                sb.append('\n').append(indent).append("  ]");
+            }
+            sb.append('\n').append(indent).append('}');
+            separator = ",";
+        }
+    }
+
+    /**
+     * Writes {@code reflect-config.json} and {@code reachability-metadata.json} to the specified directory.
+     * 
+     * @param directory
+     *            the directory to write to, is created if it does not exist
+     * @throws IOException
+     *             if the files could not be written
+     */
+    public void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Files.writeString(directory.resolve("reflect-config.json"), toReflectConfig());
+        Files.writeString(directory.resolve("reachability-metadata.json"), toReachabilityMetadata());
+    }
+
+    /**
+     * Computes the reflection metadata of an application.
+     * 
+     * @param application
+     *            a mirror of the application
+     * @return the metadata
+     */
+    public static ReachabilityMetadata of(ApplicationMirror application) {
+        requireNonNull(application, "application is null");
+        ReachabilityMetadata m = new ReachabilityMetadata();
+        m.addIntrospected(application.assembly().assemblyClass());
+        m.addContainer(application.container());
+        return m;
+    }
+
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+            case '"', '\\' -> sb.append('\\').append(ch);
+            default -> sb.append(ch);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Writes the reflection metadata of an application.
+     * 
+     * @param args
+     *            the name of an assembly class with a no-argument constructor, and the directory to write to
+     * @throws Exception
+     *             if the metadata could not be computed or written
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: ReachabilityMetadata <assembly class> <output directory>");
+            System.exit(1);
+        }
+        Constructor<?> constructor = Class.forName(args[0], false, ClassLoader.getSystemClassLoader()).getDeclaredConstructor();
+        ReachabilityMetadata m = of(App.newMirror((Assembly) constructor.newInstance()));
+        Path directory = Path.of(args[1]);
+        m.write(directory);
+        System.out.println("Wrote metadata for " + m.types.size() + " types to " + directory);
+    }
+
+    /** A single constructor or method. */
+    private record MethodEntry(String name, List<String> parameterTypes) implements Comparable<MethodEntry> {
+
+        /** {@inheritDoc} */
+        @Override
+        public int compareTo(MethodEntry o) {
+            int c = name.compareTo(o.name);
+            return c != 0 ? c : String.join(",", parameterTypes).compareTo(String.join(",", o.parameterTypes));
+        }
+    }
+
+    /** A single type. */
+    private static final class TypeEntry {
+
+        /** The names of every registered field. */
+        final TreeSet<String> fields = new TreeSet<>();
+
+        /** Whether or not the members of the type are queried. */
+        boolean introspected;
+
+        /** Every registered constructor and method. */
+        final TreeSet<MethodEntry> methods = new TreeSet<>();
+
+        /** The name of the type. */
+        final String name;
+
+        TypeEntry(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.application;
+
+import java.lang.reflect.Executable;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import app.packed.lifetime.RunState;
+import internal.app.packed.bean.BeanSetup;
+import internal.app.packed.lifetime.ContainerLifetimeSetup;
+import internal.app.packed.lifetime.LifetimeAccessor.DynamicAccessor;
+import internal.app.packed.lifetime.LifetimeOperation;
+import internal.app.packed.operation.OperationSetup;
+import internal.app.packed.operation.OperationSetup.MemberOperationSetup.ConstructorOperationSetup;
+import internal.app.packed.operation.OperationSetup.MemberOperationSetup.MethodOperationSetup;
+import internal.app.packed.operation.binding.BindingProvider;
+import internal.app.packed.operation.binding.BindingProvider.FromLifetimeArena;
+import internal.app.packed.operation.binding.BindingSetup;
+import internal.app.packed.service.ServiceBindingSetup;
+
+/**
+ * The wiring of a code generated application, described as plain constructor and method invocations whose arguments
+ * are read from the slots of the lifetime arena.
+ * <p>
+ * Only applications whose beans are all constructed and initialized this way can be described. Used by
+ * {@link PersistedLaunchPlan} and {@link ApplicationSourceGenerator}.
+ */
+final class WiringPlan {
+
+    /** The application. */
+    final ApplicationSetup application;
+
+    /** Steps that populate the arena, followed by every initialization operation, in the order they are invoked. */
+    final ArrayList<Step> initialize = new ArrayList<>();
+
+    /** The lifetime of the root container. */
+    final ContainerLifetimeSetup lifetime;
+
+    /** The type of service keys without qualifiers or type arguments and the slot that provides them, in the order they were added. */
+    final LinkedHashMap<Class<?>, Integer> services = new LinkedHashMap<>();
+
+    /** The type of each slot in the arena. */
+    final Class<?>[] slots;
+
+    /** The start operations of every bean in dependency order. */
+    final ArrayList<Step> start = new ArrayList<>();
+
+    /** The stop operations of every bean in reverse dependency order. */
+    final ArrayList<Step> stop = new ArrayList<>();
+
+    private WiringPlan(ApplicationSetup application) {
+        this.application = application;
+        this.lifetime = application.container.lifetime;
+        this.slots = new Class<?>[lifetime.pool.size()];
+    }
+
+    /**
+     * Describes the specified application.
+     * 
+     * @param application
+     *            the application, must have been code generated
+     * @return the plan
+     * @throws UnsupportedOperationException
+     *             if the application cannot be described
+     */
+    static WiringPlan of(ApplicationSetup application) {
+        if (application.codegen == null || application.container.lifetime.order == null) {
+            throw new UnsupportedOperationException("The application has not been code generated");
+        }
+        if (application.entryPoints != null) {
+            throw new UnsupportedOperationException("Applications with entry points are not supported");
+        }
+        if (!application.codegen.actions.isEmpty()) {
+            throw new UnsupportedOperationException("Extensions that generate code are not supported");
+        }
+        if (application.container.lifetime.pool.sharedSize() > 0) {
+            throw new UnsupportedOperationException("Beans installed as instances are not supported");
+        }
+
+        WiringPlan p = new WiringPlan(application);
+        p.lifetime.pool.forEachEntry((o, a) -> {
+            p.slots[a.index()] = a.type();
+            p.initialize.add(p.step(o, a.index()));
+        });
+        for (OperationSetup o : p.lifetime.initialize) {
+            p.initialize.add(p.step(o, -1));
+        }
+
+        List<BeanSetup> beans = p.lifetime.order.beans;
+        for (BeanSetup b : beans) {
+            p.addLifecycle(b, RunState.STARTING, p.start);
+        }
+        for (int i = beans.size() - 1; i >= 0; i--) {
+            p.addLifecycle(beans.get(i), RunState.STOPPING, p.stop);
+        }
+
+        application.container.sm.injectionManager.forEachService((k, a) -> {
+            if (k.hasQualifiers()) {
+                throw new UnsupportedOperationException("Services with qualifiers are not supported, key = " + k);
+            }
+            if (!(k.typeToken().type() instanceof Class)) {
+                throw new UnsupportedOperationException("Services with generic keys are not supported, key = " + k);
+            }
+            if (!(a instanceof DynamicAccessor da) || p.slots[da.index()] == null) {
+                throw new UnsupportedOperationException("Services must be provided by a container bean, key = " + k);
+            }
+            p.services.put(k.rawType(), da.index());
+        });
+        return p;
+    }
+
+    private void addLifecycle(BeanSetup bean, RunState state, ArrayList<Step> steps) {
+        for (LifetimeOperation lop : bean.operationsLifetime) {
+            if (lop.state() == state) {
+                steps.add(step(lop.os(), -1));
+            }
+        }
+    }
+
+    private Step step(OperationSetup operation, int store) {
+        Executable e;
+        int receiver = -1;
+        if (operation instanceof ConstructorOperationSetup c) {
+            e = c.constructor();
+        } else if (operation instanceof MethodOperationSetup m) {
+            e = m.method();
+            if (!Modifier.isStatic(e.getModifiers())) {
+                if (!(operation.bean.lifetimePoolAccessor instanceof DynamicAccessor da)) {
+                    throw new UnsupportedOperationException("Only container beans are supported, bean = " + operation.bean.beanClass);
+                }
+                receiver = da.index();
+            }
+        } else {
+            throw new UnsupportedOperationException("Only constructor and method operations are supported, operation = " + operation);
+        }
+        if (operation.bindings.length != e.getParameterCount()) {
+            throw new UnsupportedOperationException("Operations with synthetic parameters are not supported, operation = " + operation);
+        }
+        int[] arguments = new int[operation.bindings.length];
+        for (int i = 0; i < arguments.length; i++) {
+            int slot = arguments[i] = slotOf(operation.bindings[i]);
+            if (slot < 0) {
+                throw new UnsupportedOperationException(
+                        "Only dependencies on other container beans are supported, parameter " + i + " of " + e);
+            }
+        }
+        return new Step(e, receiver, arguments, store);
+    }
+
+    /** {@return the slot in the arena that provides values for the specified binding, or -1 if none.} */
+    private int slotOf(BindingSetup binding) {
+        BindingProvider p = binding.provider;
+        if (p == null && binding instanceof ServiceBindingSetup s && s.entry.provider != null) {
+            p = s.entry.provider.resolution;
+        }
+        return p instanceof FromLifetimeArena a && a.containerLifetime == lifetime ? a.index : -1;
+    }
+
+    /**
+     * A single constructor or method invocation.
+     * 
+     * @param member
+     *            the constructor or method
+     * @param receiver
+     *            the slot of the receiver, or -1 if a constructor or static method
+     * @param arguments
+     *            the slots of the arguments
+     * @param store
+     *            the slot the result is stored in, or -1 if the result is discarded
+     */
+    record Step(Executable member, int receiver, int[] arguments, int store) {}
+}
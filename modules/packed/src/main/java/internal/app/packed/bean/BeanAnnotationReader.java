@@ -19,9 +19,20 @@ import java.lang.annotation.Annotation;
 
 import app.packed.bean.BeanIntrospector.AnnotationReader;
 
-/** Implementation of {@link AnnotationReader}. */
+/**
+ * Implementation of {@link AnnotationReader}.
+ * <p>
+ * The annotations array is shared with the cached model of the bean class, see {@link BeanClassModel}. So it must never
+ * be exposed directly.
+ */
 public record BeanAnnotationReader(Annotation[] annotations) implements AnnotationReader {
 
+    /** {@return a copy of the annotations.} */
+    @Override
+    public Annotation[] annotations() {
+        return annotations.clone();
+    }
+
     /** {@inheritDoc} */
     @Override
     public boolean isAnnotationPresent(Class<? extends Annotation> annotationClass) {
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.bean;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.zip.CRC32;
+
+import app.packed.framework.Nullable;
+
+/**
+ * The hook annotated members of a single class, as indexed at compile time by the {@code packed-processor} annotation
+ * processor.
+ * <p>
+ * The index only lists candidates, the annotations of every member are still matched when the bean is introspected.
+ * If a class is not in any index, or an index cannot be read, the class is scanned reflectively. The same applies if the
+ * checksum of the class file differs from the index. Which happens if the class has been recompiled without the
+ * processor, for example, by an IDE.
+ */
+final class BeanClassIndex {
+
+    /** The location of every index. Must match app.packed.processor.BeanHookIndexProcessor. */
+    static final String RESOURCE = "META-INF/app.packed/bean-hooks.idx";
+
+    /** Loaded indexes by class loader. */
+    private static final WeakHashMap<ClassLoader, Map<String, BeanClassIndex>> LOADERS = new WeakHashMap<>();
+
+    /** The CRC-32 checksum of the class file when it was indexed. */
+    private final long checksum;
+
+    /** The names of every hook annotated field declared by the class. */
+    final String[] fields;
+
+    /** The names of every hook annotated method declared by the class. */
+    final String[] methods;
+
+    /** The descriptors of every hook annotated method declared by the class. */
+    final String[] methodDescriptors;
+
+    private BeanClassIndex(long checksum, String[] fields, String[] methods, String[] methodDescriptors) {
+        this.checksum = checksum;
+        this.fields = fields;
+        this.methods = methods;
+        this.methodDescriptors = methodDescriptors;
+    }
+
+    /**
+     * Returns the index of the specified class.
+     * 
+     * @param clazz
+     *            the class
+     * @return the index, or null if the class has not been indexed or the index is out of date
+     */
+    @Nullable
+    static BeanClassIndex of(Class<?> clazz) {
+        ClassLoader loader = clazz.getClassLoader();
+        if (loader == null) {
+            return null;
+        }
+        Map<String, BeanClassIndex> m;
+        synchronized (LOADERS) {
+            m = LOADERS.computeIfAbsent(loader, BeanClassIndex::load);
+        }
+        BeanClassIndex index = m.get(clazz.getName());
+        return index == null || !index.isCurrent(clazz) ? null : index;
+    }
+
+    /** {@return whether or not the class file of the specified class has the same checksum as when it was indexed} */
+    private boolean isCurrent(Class<?> clazz) {
+        String name = clazz.getName();
+        try (InputStream in = clazz.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class")) {
+            if (in == null) {
+                return false;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(in.readAllBytes());
+            return crc.getValue() == checksum;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Loads every index that is visible from the specified class loader. */
+    private static Map<String, BeanClassIndex> load(ClassLoader loader) {
+        HashMap<String, BeanClassIndex> result = new HashMap<>();
+        try {
+            Enumeration<URL> urls = loader.getResources(RESOURCE);
+            while (urls.hasMoreElements()) {
+                try (BufferedReader r = new BufferedReader(new InputStreamReader(urls.nextElement().openStream(), StandardCharsets.UTF_8))) {
+                    parse(r, result);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            return Map.of(); // Fallback to scanning every class
+        }
+        return Map.copyOf(result);
+    }
+
+    private static void parse(BufferedReader r, Map<String, BeanClassIndex> result) throws IOException {
+        String className = null;
+        long checksum = 0;
+        ArrayList<String> fields = new ArrayList<>();
+        ArrayList<String> methods = new ArrayList<>();
+        ArrayList<String> descriptors = new ArrayList<>();
+        for (String line = r.readLine();; line = r.readLine()) {
+            if (line == null || !line.startsWith(" ")) {
+                if (className != null) {
+                    result.put(className, new BeanClassIndex(checksum, fields.toArray(String[]::new), methods.toArray(String[]::new),
+                            descriptors.toArray(String[]::new)));
+                    fields.clear();
+                    methods.clear();
+                    descriptors.clear();
+                }
+                if (line == null) {
+                    return;
+                }
+                String[] s = line.split(" ");
+                if (s.length != 2) {
+                    throw new IOException("Malformed index line: " + line);
+                }
+                className = s[0];
+                checksum = Long.parseLong(s[1], 16);
+            } else if (line.startsWith(" F ")) {
+                fields.add(line.substring(3));
+            } else if (line.startsWith(" M ")) {
+                int i = line.indexOf(' ', 3);
+                methods.add(line.substring(3, i));
+                descriptors.add(line.substring(i + 1));
+            } else {
+                throw new IOException("Malformed index line: " + line);
+            }
+        }
+    }
+}
@@ -25,7 +25,10 @@ public final class BeanClassMapContainer {
     /** A map of all non-void bean classes. Used for controlling non-multi-install beans. */
     public final HashMap<Class<?>, Object> beanClassMap = new HashMap<>();
     
+    /** Marks a bean class that has been installed via multi install. */
     public static class MuInst {
+
+        /** The next suffix to try when naming a bean of the class. */
         int counter;
     }
 }
@@ -0,0 +1,400 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.bean;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import app.packed.bean.BeanExtensionPoint.BindingHook;
+import app.packed.bean.BeanExtensionPoint.FieldHook;
+import app.packed.bean.InvalidBeanDefinitionException;
+import app.packed.extension.Extension;
+import internal.app.packed.bean.BeanHookModel.AnnotatedField;
+import internal.app.packed.bean.BeanHookModel.AnnotatedMethod;
+import internal.app.packed.framework.devtools.PackedDevToolsIntegration;
+
+/**
+ * An immutable model of the members of a single bean class that are annotated with hook annotations.
+ * <p>
+ * Scanning a bean class for hook annotations requires calling {@link Class#getMethods()},
+ * {@link Class#getDeclaredMethods()} and {@link Class#getDeclaredFields()} on every class in the hierarchy, as well as
+ * reading the annotations of every member. Since the result only depends on the bean class and the
+ * {@link BeanHookModel} used for matching annotations, it is computed once and cached via
+ * {@link BeanHookModel#lookupBeanClass(Class)}. A new introspection of the same bean class only needs to replay the
+ * hook matches into the relevant {@link app.packed.bean.BeanIntrospector bean introspectors}.
+ * <p>
+ * If the bean class and its super types have been indexed at compile time, see {@link BeanClassIndex}, only the indexed
+ * members are looked up.
+ */
+final class BeanClassModel {
+
+    /** Every field that has at least one hook annotation, super classes first. */
+    final HookedField[] fields;
+
+    /** Every method that has at least one hook annotation, in the order they should be presented to introspectors. */
+    final HookedMethod[] methods;
+
+    /** Whether or not the model has been claimed by the first bean that used it. */
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    private BeanClassModel(HookedField[] fields, HookedMethod[] methods) {
+        this.fields = fields;
+        this.methods = methods;
+    }
+
+    /**
+     * Claims the model. Only the first invocation returns true, which is used for telling apart bean classes that were
+     * introspected from bean classes whose model was reused.
+     * 
+     * @return true if this was the first invocation, otherwise false
+     */
+    boolean claim() {
+        return !claimed.get() && claimed.compareAndSet(false, true);
+    }
+
+    /**
+     * Creates a new model by scanning the specified bean class.
+     *
+     * @param hookModel
+     *            the hook model used for matching annotations
+     * @param beanClass
+     *            the bean class to scan
+     * @return the new model
+     */
+    static BeanClassModel of(BeanHookModel hookModel, Class<?> beanClass) {
+        ArrayList<HookedField> fields = new ArrayList<>();
+        ArrayList<HookedMethod> methods = new ArrayList<>();
+        if (!findIndexed(hookModel, beanClass, fields, methods)) {
+            fields.clear();
+            methods.clear();
+            findFields(hookModel, beanClass, fields);
+            findMethods(hookModel, beanClass, methods);
+        }
+        return new BeanClassModel(fields.toArray(HookedField[]::new), methods.toArray(HookedMethod[]::new));
+    }
+
+    /**
+     * Finds hooked members using the compile time indexes of the bean class and its super types, see
+     * {@link BeanClassIndex}.
+     * <p>
+     * Fields are never overridden, so they are always looked up directly. Methods are only looked up directly if every
+     * hook annotated method is declared by the bean class itself. Otherwise we need to scan for overriding methods, and
+     * fallback to a reflective scan of the methods.
+     *
+     * @return false if any of the classes have not been indexed, or the index is out of date
+     */
+    private static boolean findIndexed(BeanHookModel hookModel, Class<?> beanClass, ArrayList<HookedField> fields, ArrayList<HookedMethod> methods) {
+        if (beanClass.getModule() == IntrospectedBean.JAVA_BASE_MODULE) {
+            return false;
+        }
+        ArrayList<Class<?>> hierarchy = new ArrayList<>();
+        ArrayList<BeanClassIndex> indexes = new ArrayList<>();
+        boolean inheritsHookedMethods = false;
+        for (Class<?> c = beanClass; c.getModule() != IntrospectedBean.JAVA_BASE_MODULE; c = c.getSuperclass()) {
+            BeanClassIndex index = BeanClassIndex.of(c);
+            if (index == null) {
+                return false;
+            }
+            hierarchy.add(c);
+            indexes.add(index);
+            inheritsHookedMethods |= c != beanClass && index.methods.length > 0;
+            for (Class<?> i : c.getInterfaces()) {
+                int r = checkInterfaces(i);
+                if (r < 0) {
+                    return false;
+                }
+                inheritsHookedMethods |= r > 0;
+            }
+        }
+
+        try {
+            // Super classes first
+            for (int i = hierarchy.size() - 1; i >= 0; i--) {
+                Class<?> c = hierarchy.get(i);
+                for (String name : indexes.get(i).fields) {
+                    HookedField f = matchField(hookModel, c.getDeclaredField(name));
+                    if (f != null) {
+                        fields.add(f);
+                    }
+                }
+            }
+
+            if (inheritsHookedMethods) {
+                findMethods(hookModel, beanClass, methods);
+            } else {
+                BeanClassIndex index = indexes.get(0);
+                for (int i = 0; i < index.methods.length; i++) {
+                    Class<?>[] parameterTypes = MethodType.fromMethodDescriptorString(index.methodDescriptors[i], beanClass.getClassLoader()).parameterArray();
+                    addMethod(hookModel, beanClass.getDeclaredMethod(index.methods[i], parameterTypes), methods);
+                }
+            }
+        } catch (NoSuchFieldException | NoSuchMethodException | TypeNotPresentException | IllegalArgumentException e) {
+            return false; // The index does not match the class
+        }
+        return true;
+    }
+
+    /** {@return -1 if an interface has not been indexed, 1 if any interface has hook annotated methods, otherwise 0} */
+    private static int checkInterfaces(Class<?> iface) {
+        if (iface.getModule() == IntrospectedBean.JAVA_BASE_MODULE) {
+            return 0;
+        }
+        BeanClassIndex index = BeanClassIndex.of(iface);
+        if (index == null) {
+            return -1;
+        }
+        int result = index.methods.length > 0 ? 1 : 0;
+        for (Class<?> i : iface.getInterfaces()) {
+            int r = checkInterfaces(i);
+            if (r < 0) {
+                return -1;
+            }
+            result |= r;
+        }
+        return result;
+    }
+
+    private static void findFields(BeanHookModel hookModel, Class<?> clazz, ArrayList<HookedField> fields) {
+        // We never process classes in the "java.base" module.
+        if (clazz.getModule() != IntrospectedBean.JAVA_BASE_MODULE) {
+
+            // Recursively call into superclass, before processing own fields
+            findFields(hookModel, clazz.getSuperclass(), fields);
+
+            // Iterate over all declared fields
+            for (Field field : clazz.getDeclaredFields()) {
+                HookedField f = matchField(hookModel, field);
+                if (f != null) {
+                    fields.add(f);
+                }
+            }
+        }
+    }
+
+    private static void findMethods(BeanHookModel hookModel, Class<?> beanClass, ArrayList<HookedMethod> methods) {
+        // See also java.lang.PublicMethods
+        record MethodHelper(int hash, String name, Class<?>[] parameterTypes) {
+
+            MethodHelper(Method method) {
+                this(method.getName(), method.getParameterTypes());
+            }
+
+            MethodHelper(String name, Class<?>[] parameterTypes) {
+                this(name.hashCode() ^ Arrays.hashCode(parameterTypes), name, parameterTypes);
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public boolean equals(Object obj) {
+                return obj instanceof MethodHelper h && name == h.name() && Arrays.equals(parameterTypes, h.parameterTypes);
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public int hashCode() {
+                return hash;
+            }
+        }
+
+        HashSet<Package> packages = new HashSet<>();
+        HashMap<MethodHelper, HashSet<Package>> types = new HashMap<>();
+
+        // Step 1, .getMethods() is the easiest way to find all default methods. Even if we also have to call
+        // getDeclaredMethods() later.
+        for (Method m : beanClass.getMethods()) {
+            // Filter methods whose from java.base module and bridge methods
+            // TODO add check for
+            if (m.getDeclaringClass().getModule() != IntrospectedBean.JAVA_BASE_MODULE && !m.isBridge()) {
+                types.put(new MethodHelper(m), packages);
+                addMethod(hookModel, m, methods);
+            }
+        }
+
+        // Step 2 process all declared methods
+
+        // Maybe some kind of detection if current type (c) switches modules.
+        for (Class<?> c = beanClass; c.getModule() != IntrospectedBean.JAVA_BASE_MODULE; c = c.getSuperclass()) {
+            Method[] declaredMethods = c.getDeclaredMethods();
+            PackedDevToolsIntegration.INSTANCE.reflectMembers(c, declaredMethods);
+            for (Method m : declaredMethods) {
+                int mod = m.getModifiers();
+                if (Modifier.isStatic(mod)) {
+                    if (c == beanClass && !Modifier.isPublic(mod)) { // we have already processed public static methods
+                        // only include static methods in the top level class
+                        // We do this, because it would be strange to include
+                        // static methods on any interfaces this class implements.
+                        // But it would also be strange to include static methods on sub classes
+                        // but not include static methods on interfaces.
+                        addMethod(hookModel, m, methods);
+                    }
+                } else if (!m.isBridge() && !m.isSynthetic()) { // TODO should we include synthetic methods??
+                    switch (mod & (Modifier.PUBLIC | Modifier.PROTECTED | Modifier.PRIVATE)) {
+                    case Modifier.PUBLIC:
+                        continue; // we have already added the method in the first step
+                    default: // default access
+                        HashSet<Package> pkg = types.computeIfAbsent(new MethodHelper(m), key -> new HashSet<>());
+                        if (pkg != packages && pkg.add(c.getPackage())) {
+                            break;
+                        } else {
+                            continue;
+                        }
+                    case Modifier.PROTECTED:
+                        if (types.putIfAbsent(new MethodHelper(m), packages) != null) {
+                            continue; // method has been overridden by a super type
+                        }
+                        // otherwise fall-through
+                    case Modifier.PRIVATE:
+                        // Private methods are never overridden
+                    }
+                    addMethod(hookModel, m, methods);
+                }
+            }
+        }
+    }
+
+    /**
+     * Look for hook annotations on a single method. Adding the method to the specified list if any are found.
+     *
+     * @param method
+     *            the method to look for annotations on
+     */
+    private static void addMethod(BeanHookModel hookModel, Method method, ArrayList<HookedMethod> methods) {
+        Annotation[] annotations = method.getAnnotations();
+        ArrayList<AnnotatedMethod> matches = null;
+        for (int i = 0; i < annotations.length; i++) {
+            AnnotatedMethod fh = hookModel.lookupAnnotationOnMethod(annotations[i].annotationType());
+            if (fh != null) {
+                if (matches == null) {
+                    matches = new ArrayList<>(1);
+                }
+                matches.add(fh);
+            }
+        }
+        if (matches != null) {
+            methods.add(new HookedMethod(method, annotations, matches.toArray(AnnotatedMethod[]::new)));
+        }
+    }
+
+    /**
+     * Look for hook annotations on a single field.
+     *
+     * @param field
+     *            the field to look for annotations on
+     * @return a hooked field, or null if the field does not have any hook annotations
+     *
+     * @throws InvalidBeanDefinitionException
+     *             if there are multiple {@link BindingHook} on the field. Or if there are both {@link FieldHook} and
+     *             {@link BindingHook} annotations
+     *
+     * @apiNote Currently we allow multiple {@link FieldHook} on a field. This might change in the future, but for now we
+     *          allow it.
+     */
+    private static HookedField matchField(BeanHookModel hookModel, Field field) {
+        // Get all annotations on the field
+        Annotation[] annotations = field.getAnnotations();
+        ArrayList<FieldMatch> matches = null;
+
+        // Iterate through the annotations and look for usage of field and binding hook (meta) annotations
+        for (int i = 0; i < annotations.length; i++) {
+            Annotation annotation = annotations[i];
+
+            // Look in the field annotation cache to see if the annotation is a meta annotation
+            AnnotatedField e = hookModel.lookupAnnotationOnField(annotation.annotationType());
+
+            // The annotation is neither a field or binding annotation
+            if (e == null) {
+                continue;
+            }
+
+            // A record + map that we use if have multi field hook annotations
+            record MultiMatch(Class<? extends Extension<?>> extensionClass, boolean allowGet, boolean allowSet, Annotation... annotations) {}
+            IdentityHashMap<Class<? extends Extension<?>>, MultiMatch> multiMatches = null;
+
+            // Try to find additional meta annotations.
+            for (int j = i + 1; j < annotations.length; j++) {
+                Annotation annotation2 = annotations[j];
+
+                // Look in the annotation cache to see if the annotation is a meta annotation
+                AnnotatedField e2 = hookModel.lookupAnnotationOnField(annotation2.annotationType());
+
+                // The annotation is neither a field or provision annotation
+                if (e2 == null) {
+                    continue;
+                }
+
+                if (e.isBindingHook() || e2.isBindingHook()) {
+                    throw new InvalidBeanDefinitionException("Cannot use both " + annotation + " and " + annotation2);
+                }
+
+                // Okay we have more than 1 valid annotation
+
+                // Check to see if we need to create the multi match map
+                if (multiMatches == null) {
+                    multiMatches = new IdentityHashMap<>();
+                    // Start by adding the first match
+                    multiMatches.put(e.extensionType(), new MultiMatch(e.extensionType(), e.isGettable(), e.isSettable(), annotation));
+                }
+
+                // Add this match
+                multiMatches.compute(e2.extensionType(), (Class<? extends Extension<?>> key, MultiMatch value) -> {
+                    if (value == null) {
+                        return new MultiMatch(key, e2.isGettable(), e2.isSettable(), annotation2);
+                    } else {
+                        Annotation[] a = new Annotation[value.annotations.length + 1];
+                        for (int k = 0; k < value.annotations.length; k++) {
+                            a[k] = value.annotations[k];
+                        }
+                        a[a.length - 1] = annotation2;
+                        return new MultiMatch(key, e2.isGettable() && value.allowGet, e2.isSettable() && e2.isSettable(), a);
+                    }
+                });
+            }
+
+            if (matches == null) {
+                matches = new ArrayList<>(1);
+            }
+
+            // All done. Let's see if we only had a single match or multiple matches
+            if (multiMatches == null) {
+                matches.add(new FieldMatch(e.extensionType(), e.isGettable(), e.isSettable()));
+            } else {
+                // TODO we should sort by extension order when we have more than 1 match
+                for (MultiMatch mf : multiMatches.values()) {
+                    matches.add(new FieldMatch(mf.extensionClass, mf.allowGet, mf.allowSet));
+                }
+            }
+        }
+        return matches == null ? null : new HookedField(field, annotations, matches.toArray(FieldMatch[]::new));
+    }
+
+    /** A single match of a field and an extension. */
+    record FieldMatch(Class<? extends Extension<?>> extensionType, boolean allowGet, boolean allowSet) {}
+
+    /** A field with one or more hook annotations. The annotations are shared and must never be modified or exposed. */
+    record HookedField(Field field, Annotation[] annotations, FieldMatch[] matches) {}
+
+    /** A method with one or more hook annotations. The annotations are shared and must never be modified or exposed. */
+    record HookedMethod(Method method, Annotation[] annotations, AnnotatedMethod[] matches) {}
+}
@@ -70,6 +70,15 @@ public final class BeanHookModel {
         }
     };
 
+    /** A cache of the hook annotated members of bean classes. */
+    private final ClassValue<BeanClassModel> beanClassCache = new ClassValue<>() {
+
+        @Override
+        protected BeanClassModel computeValue(Class<?> type) {
+            return BeanClassModel.of(BeanHookModel.this, type);
+        }
+    };
+
     private final Map<String, Class<? extends Annotation>> bindings;
 
     /** A cache of field annotations. */
@@ -167,6 +176,18 @@ public final class BeanHookModel {
         this.bindings = Map.copyOf(bindings);
     }
 
+    /**
+     * Looks up the model of the specified bean class, scanning the class if it has not already been scanned.
+     * 
+     * @param beanClass
+     *            the bean class
+     * @return the model of the bean class
+     * @see BeanClassModel#claim()
+     */
+    BeanClassModel lookupBeanClass(Class<?> beanClass) {
+        return beanClassCache.get(beanClass);
+    }
+
     AnnotatedField lookupAnnotationOnField(Class<? extends Annotation> fieldAnnotation) {
         return FIELD_ANNOTATION_CACHE.get(fieldAnnotation);
     }
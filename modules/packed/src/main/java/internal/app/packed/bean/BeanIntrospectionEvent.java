@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.bean;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** An event that is emitted every time a bean is introspected. */
+@Name("app.packed.BeanIntrospection")
+@Label("Bean Introspection")
+@Category({ "Packed", "Build" })
+@StackTrace(false)
+public final class BeanIntrospectionEvent extends Event {
+
+    /** The class of the bean. */
+    @Label("Bean Class")
+    public Class<?> beanClass;
+
+    /** The number of fields with hook annotations. */
+    @Label("Hooked Fields")
+    public int fieldCount;
+
+    /** The number of methods with hook annotations. */
+    @Label("Hooked Methods")
+    public int methodCount;
+}
@@ -7,7 +7,7 @@ import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Supplier;
@@ -32,6 +32,7 @@ import internal.app.packed.context.ContextSetup;
 import internal.app.packed.lifetime.BeanLifetimeSetup;
 import internal.app.packed.lifetime.ContainerLifetimeSetup;
 import internal.app.packed.lifetime.LifetimeAccessor;
+import internal.app.packed.lifetime.LifetimeAccessor.LazyAccessor;
 import internal.app.packed.lifetime.LifetimeOperation;
 import internal.app.packed.lifetime.LifetimeSetup;
 import internal.app.packed.operation.OperationSetup;
@@ -40,6 +41,7 @@ import internal.app.packed.operation.PackedOp;
 import internal.app.packed.operation.PackedOperationTemplate;
 import internal.app.packed.operation.binding.BindingProvider;
 import internal.app.packed.operation.binding.BindingProvider.FromConstant;
+import internal.app.packed.operation.binding.BindingProvider.FromLazyLifetimeArena;
 import internal.app.packed.operation.binding.BindingProvider.FromLifetimeArena;
 import internal.app.packed.operation.binding.BindingProvider.FromOperation;
 import internal.app.packed.service.ProvidedService;
@@ -163,14 +165,17 @@ public final class BeanSetup {
             return new FromConstant(source.getClass(), source);
         } else if (beanKind == BeanKind.CONTAINER) {
             return new FromLifetimeArena(container.lifetime, lifetimePoolAccessIndex, beanClass);
+        } else if (beanKind == BeanKind.LAZY) {
+            return new FromLazyLifetimeArena((LazyAccessor) lifetimePoolAccessor);
         } else if (beanKind == BeanKind.MANYTON) {
             return new FromOperation(operations.get(0));
         }
         throw new Error();
     }
 
+    /** {@return the beans that the operations of this bean depend on, in the order they are bound} */
     public Set<BeanSetup> dependsOn() {
-        HashSet<BeanSetup> result = new HashSet<>();
+        LinkedHashSet<BeanSetup> result = new LinkedHashSet<>();
         for (OperationSetup os : operations) {
             result.addAll(os.dependsOn());
         }
@@ -186,6 +191,7 @@ public final class BeanSetup {
 
     /** {@return a new mirror.} */
     public BeanMirror mirror() {
+        container.application.checkMirrorsAvailable();
         BeanMirror mirror = ClassUtil.mirrorHelper(BeanMirror.class, BeanMirror::new, mirrorSupplier);
 
         // Initialize BeanMirror by calling BeanMirror#initialize(BeanSetup)
@@ -213,7 +219,7 @@ public final class BeanSetup {
             }
             throw new IllegalArgumentException("A bean or container with the specified name '" + newName + "' already exists");
         }
-        container.children.remove(name);
+        container.removeChild(name);
         this.name = newName;
     }
 
@@ -292,6 +298,7 @@ public final class BeanSetup {
                         return o;
                     }
                 });
+                // The suffixes of a multi installed bean class are never reused
                 int next = i.counter;
                 if (next > 0) {
                     n = prefix + next;
@@ -312,10 +319,7 @@ public final class BeanSetup {
                     }
                 });
                 // Not multi install, so should be able to add it first time
-                int size = 0;
-                while (container.children.putIfAbsent(n, bean) != null) {
-                    n = prefix + ++size;
-                }
+                n = container.addChildWithPrefix(prefix, bean);
             }
         }
         bean.name = n;
@@ -23,12 +23,8 @@ import java.lang.invoke.MethodHandles.Lookup;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Member;
-import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayDeque;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
 
 import app.packed.bean.BeanHandle;
@@ -40,9 +36,9 @@ import app.packed.extension.Extension;
 import app.packed.framework.Nullable;
 import internal.app.packed.container.ExtensionSetup;
 import internal.app.packed.container.ExtensionTreeSetup;
-import internal.app.packed.framework.devtools.PackedDevToolsIntegration;
-import internal.app.packed.lifetime.LifetimeAccessor;
+import internal.app.packed.lifetime.BeanLifetimeSetup;
 import internal.app.packed.lifetime.LifetimeAccessor.DynamicAccessor;
+import internal.app.packed.lifetime.LifetimeAccessor.LazyAccessor;
 import internal.app.packed.operation.OperationSetup;
 import internal.app.packed.operation.OperationSetup.MemberOperationSetup.ConstructorOperationSetup;
 import internal.app.packed.operation.PackedOperationTemplate;
@@ -150,6 +146,9 @@ public final class IntrospectedBean {
 
     /** Introspect the bean. */
     void introspect() {
+        BeanIntrospectionEvent event = new BeanIntrospectionEvent();
+        event.begin();
+
         bean.introspecting = this;
         // First, we process all annotations on the class
         introspectClass();
@@ -165,13 +164,17 @@ public final class IntrospectedBean {
             }
         }
         if (bean.sourceKind == BeanSourceKind.INSTANCE) {
-            bean.lifetimePoolAccessor = new LifetimeAccessor.ConstantAccessor(bean.source);
+            bean.lifetimePoolAccessor = bean.container.lifetime.pool.reserveShared(bean.source);
         } else if (bean.beanKind == BeanKind.CONTAINER) {
             DynamicAccessor da = bean.container.lifetime.pool.reserve(bean.beanClass);
             bean.lifetimePoolAccessor = da;
             bean.lifetimePoolAccessIndex = da.index();
         } else if (bean.beanKind == BeanKind.LAZY) {
-            throw new UnsupportedOperationException();
+            LazyAccessor la = bean.container.lifetime.pool.reserveLazy(bean.beanClass);
+            bean.lifetimePoolAccessor = la;
+            bean.lifetimePoolAccessIndex = la.index();
+            BeanLifetimeSetup lifetime = (BeanLifetimeSetup) bean.lifetime;
+            bean.container.application.addCodegenAction(() -> lifetime.codegen(la));
         }
 
         // Only create an instance node if we have instances
@@ -179,90 +182,20 @@ public final class IntrospectedBean {
             bean.container.sm.injectionManager.addConsumer(bean.operations.get(0), bean.lifetimePoolAccessor);
         }
 
-        // See also java.lang.PublicMethods
+        // Lookup the (cached) hook annotated members of the bean class
+        BeanClassModel model = hookModel.lookupBeanClass(bean.beanClass);
+        bean.container.application.statistics.classLookedUp(bean.beanClass, !model.claim());
 
         // Introspect all fields on the bean and its super classes
-        introspectAllFields(this, bean.beanClass);
-
-        // Process all methods on the bean
-        record MethodHelper(int hash, String name, Class<?>[] parameterTypes) {
-
-            MethodHelper(Method method) {
-                this(method.getName(), method.getParameterTypes());
-            }
-
-            MethodHelper(String name, Class<?>[] parameterTypes) {
-                this(name.hashCode() ^ Arrays.hashCode(parameterTypes), name, parameterTypes);
-            }
-
-            /** {@inheritDoc} */
-            @Override
-            public boolean equals(Object obj) {
-                return obj instanceof MethodHelper h && name == h.name() && Arrays.equals(parameterTypes, h.parameterTypes);
-            }
-
-            /** {@inheritDoc} */
-            @Override
-            public int hashCode() {
-                return hash;
-            }
+        for (BeanClassModel.HookedField f : model.fields) {
+            IntrospectedBeanField.introspectField(this, f);
         }
 
-        HashSet<Package> packages = new HashSet<>();
-        HashMap<MethodHelper, HashSet<Package>> types = new HashMap<>();
-        Class<?> beanClass = bean.beanClass;
-
-        // Step 1, .getMethods() is the easiest way to find all default methods. Even if we also have to call
-        // getDeclaredMethods() later.
-        for (Method m : beanClass.getMethods()) {
-            // Filter methods whose from java.base module and bridge methods
-            // TODO add check for
-            if (m.getDeclaringClass().getModule() != JAVA_BASE_MODULE && !m.isBridge()) {
-                types.put(new MethodHelper(m), packages);
-                IntrospectedBeanMethod.introspectMethodForAnnotations(this, m);
-            }
+        // Process all methods on the bean
+        for (BeanClassModel.HookedMethod m : model.methods) {
+            IntrospectedBeanMethod.introspectMethod(this, m);
         }
 
-        // Step 2 process all declared methods
-
-        // Maybe some kind of detection if current type (c) switches modules.
-        for (Class<?> c = beanClass; c.getModule() != JAVA_BASE_MODULE; c = c.getSuperclass()) {
-            Method[] methods = c.getDeclaredMethods();
-            PackedDevToolsIntegration.INSTANCE.reflectMembers(c, methods);
-            for (Method m : methods) {
-                int mod = m.getModifiers();
-                if (Modifier.isStatic(mod)) {
-                    if (c == beanClass && !Modifier.isPublic(mod)) { // we have already processed public static methods
-                        // only include static methods in the top level class
-                        // We do this, because it would be strange to include
-                        // static methods on any interfaces this class implements.
-                        // But it would also be strange to include static methods on sub classes
-                        // but not include static methods on interfaces.
-                        IntrospectedBeanMethod.introspectMethodForAnnotations(this, m);
-                    }
-                } else if (!m.isBridge() && !m.isSynthetic()) { // TODO should we include synthetic methods??
-                    switch (mod & (Modifier.PUBLIC | Modifier.PROTECTED | Modifier.PRIVATE)) {
-                    case Modifier.PUBLIC:
-                        continue; // we have already added the method in the first step
-                    default: // default access
-                        HashSet<Package> pkg = types.computeIfAbsent(new MethodHelper(m), key -> new HashSet<>());
-                        if (pkg != packages && pkg.add(c.getPackage())) {
-                            break;
-                        } else {
-                            continue;
-                        }
-                    case Modifier.PROTECTED:
-                        if (types.putIfAbsent(new MethodHelper(m), packages) != null) {
-                            continue; // method has been overridden by a super type
-                        }
-                        // otherwise fall-through
-                    case Modifier.PRIVATE:
-                        // Private methods are never overridden
-                    }
-                    IntrospectedBeanMethod.introspectMethodForAnnotations(this, m);
-                }
-            }
-        }
         // Should be empty... Maybe just an assert
         resolveOperations();
 
@@ -272,6 +205,13 @@ public final class IntrospectedBean {
         for (Contributor e : extensions.values()) {
             e.introspector.onIntrospectionStop();
         }
+
+        if (event.shouldCommit()) {
+            event.beanClass = bean.beanClass;
+            event.fieldCount = model.fields.length;
+            event.methodCount = model.methods.length;
+            event.commit();
+        }
     }
 
     private void introspectClass() {}
@@ -296,22 +236,6 @@ public final class IntrospectedBean {
         }
     }
 
-    private static void introspectAllFields(IntrospectedBean introspector, Class<?> clazz) {
-        // We never process classes in the "java.base" module.
-        if (clazz.getModule() != IntrospectedBean.JAVA_BASE_MODULE) {
-
-            // Recursively call into superclass, before processing own fields
-            introspectAllFields(introspector, clazz.getSuperclass());
-
-            // PackedDevToolsIntegration.INSTANCE.reflectMembers(c, fields);
-
-            // Iterate over all declared fields
-            for (Field field : clazz.getDeclaredFields()) {
-                IntrospectedBeanField.introspectFieldForAnnotations(introspector, field);
-            }
-        }
-    }
-
     /**
      * An instance of this class is created per extension that participates in the introspection. The main purpose of the
      * class is to make sure that the extension points to the same bean introspector for the whole of the introspection.
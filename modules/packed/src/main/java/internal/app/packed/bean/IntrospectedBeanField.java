@@ -22,21 +22,15 @@ import java.lang.invoke.VarHandle;
 import java.lang.invoke.VarHandle.AccessMode;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
-import java.util.IdentityHashMap;
 
-import app.packed.bean.BeanExtensionPoint.BindingHook;
-import app.packed.bean.BeanExtensionPoint.FieldHook;
 import app.packed.bean.BeanIntrospector;
 import app.packed.bean.BeanIntrospector.AnnotationReader;
 import app.packed.bean.BeanIntrospector.OnField;
-import app.packed.extension.Extension;
 import app.packed.bean.InaccessibleBeanMemberException;
-import app.packed.bean.InvalidBeanDefinitionException;
 import app.packed.operation.OperationHandle;
 import app.packed.operation.OperationTemplate;
 import app.packed.operation.OperationType;
 import app.packed.operation.Variable;
-import internal.app.packed.bean.BeanHookModel.AnnotatedField;
 import internal.app.packed.bean.IntrospectedBean.Contributor;
 import internal.app.packed.operation.OperationSetup;
 import internal.app.packed.operation.OperationSetup.MemberOperationSetup.FieldOperationSetup;
@@ -66,8 +60,7 @@ public final class IntrospectedBeanField implements OnField {
     /** Whether or not we can create new operations from this class. */
     private boolean isConfigurationDisabled;
 
-    private IntrospectedBeanField(IntrospectedBean iBean, Contributor contributer, Field field, boolean allowGet, boolean allowSet, Annotation[] annotations,
-            AnnotatedField... annotatedFields) {
+    private IntrospectedBeanField(IntrospectedBean iBean, Contributor contributer, Field field, boolean allowGet, boolean allowSet, Annotation[] annotations) {
         this.iBean = iBean;
         this.contributer = contributer;
         this.field = field;
@@ -166,98 +159,22 @@ public final class IntrospectedBeanField implements OnField {
     }
 
     /**
-     * Introspect a single field on a bean looking for hook annotations.
+     * Presents a single field with hook annotations to the matching bean introspectors.
      * 
-     * @param field
-     *            the field to introspect
-     * 
-     * @throws InvalidBeanDefinitionException
-     *             if there are multiple {@link BindingHook} on the field. Or if there are both {@link FieldHook} and
-     *             {@link BindingHook} annotations
-     * 
-     * @apiNote Currently we allow multiple {@link FieldHook} on a field. This might change in the future, but for now we
-     *          allow it.
+     * @param iBean
+     *            the introspected bean
+     * @param hooked
+     *            the hooked field
      */
-    static void introspectFieldForAnnotations(IntrospectedBean iBean, Field field) {
-        // Get all annotations on the field
-        Annotation[] annotations = field.getAnnotations();
-
-        // Iterate through the annotations and look for usage of field and binding hook (meta) annotations
-        for (int i = 0; i < annotations.length; i++) {
-            Annotation annotation = annotations[i];
-
-            // Look in the field annotation cache to see if the annotation is a meta annotation
-            AnnotatedField e = iBean.hookModel.lookupAnnotationOnField(annotation.annotationType());
-
-            // The annotation is neither a field or binding annotation
-            if (e == null) {
-                continue;
-            }
-
-            // A record + map that we use if have multi field hook annotations
-            record MultiMatch(Class<? extends Extension<?>> extensionClass, boolean allowGet, boolean allowSet, Annotation... annotations) {}
-            IdentityHashMap<Class<? extends Extension<?>>, MultiMatch> multiMatches = null;
-
-            // Try to find additional meta annotations.
-            for (int j = i + 1; j < annotations.length; j++) {
-                Annotation annotation2 = annotations[j];
-
-                // Look in the annotation cache to see if the annotation is a meta annotation
-                AnnotatedField e2 = iBean.hookModel.lookupAnnotationOnField(annotation2.annotationType());
-
-                // The annotation is neither a field or provision annotation
-                if (e2 == null) {
-                    continue;
-                }
-
-                if (e.isBindingHook() || e2.isBindingHook()) {
-                    throw new InvalidBeanDefinitionException("Cannot use both " + annotation + " and " + annotation2);
-                }
-
-                // Okay we have more than 1 valid annotation
-
-                // Check to see if we need to create the multi match map
-                if (multiMatches == null) {
-                    multiMatches = new IdentityHashMap<>();
-                    // Start by adding the first match
-                    multiMatches.put(e.extensionType(), new MultiMatch(e.extensionType(), e.isGettable(), e.isSettable(), annotation));
-                }
-
-                // Add this match
-                multiMatches.compute(e2.extensionType(), (Class<? extends Extension<?>> key, MultiMatch value) -> {
-                    if (value == null) {
-                        return new MultiMatch(key, e2.isGettable(), e2.isSettable(), annotation2);
-                    } else {
-                        Annotation[] a = new Annotation[value.annotations.length + 1];
-                        for (int k = 0; k < value.annotations.length; k++) {
-                            a[k] = value.annotations[k];
-                        }
-                        a[a.length - 1] = annotation2;
-                        return new MultiMatch(key, e2.isGettable() && value.allowGet, e2.isSettable() && e2.isSettable(), a);
-                    }
-                });
-            }
-
-            // All done. Let's see if we only had a single match or multiple matches
-            if (multiMatches == null) {
-                // Get the matching extension, installing it if needed.
-                IntrospectedBean.Contributor contributor = iBean.computeContributor(e.extensionType(), false);
-
-                // Create the wrapped field that is exposed to the extension
-                IntrospectedBeanField f = new IntrospectedBeanField(iBean, contributor, field, e.isGettable() || contributor.hasFullAccess(),
-                        e.isSettable() || contributor.hasFullAccess(), annotations);
-                f.callBeanIntrospectorOnField();
-            } else {
-                // TODO we should sort by extension order when we have more than 1 match
-                for (MultiMatch mf : multiMatches.values()) {
-                    IntrospectedBean.Contributor contributor = iBean.computeContributor(mf.extensionClass, false);
-
-                    // Create the wrapped field that is exposed to the extension
-                    IntrospectedBeanField f = new IntrospectedBeanField(iBean, contributor, field, mf.allowGet || contributor.hasFullAccess(),
-                            mf.allowSet || contributor.hasFullAccess(), annotations);
-                    f.callBeanIntrospectorOnField();
-                }
-            }
+    static void introspectField(IntrospectedBean iBean, BeanClassModel.HookedField hooked) {
+        for (BeanClassModel.FieldMatch m : hooked.matches()) {
+            // Get the matching extension, installing it if needed.
+            IntrospectedBean.Contributor contributor = iBean.computeContributor(m.extensionType(), false);
+
+            // Create the wrapped field that is exposed to the extension
+            IntrospectedBeanField f = new IntrospectedBeanField(iBean, contributor, hooked.field(), m.allowGet() || contributor.hasFullAccess(),
+                    m.allowSet() || contributor.hasFullAccess(), hooked.annotations());
+            f.callBeanIntrospectorOnField();
         }
     }
 }
@@ -118,24 +118,20 @@ public final class IntrospectedBeanMethod implements OnMethod {
 
 
     /**
-     * Look for hook annotations on a single method.
+     * Presents a single method with hook annotations to the matching bean introspectors.
      * 
-     * @param method
-     *            the method to look for annotations on
+     * @param iBean
+     *            the introspected bean
+     * @param hooked
+     *            the hooked method
      */
-    static void introspectMethodForAnnotations(IntrospectedBean iBean, Method method) {
-        Annotation[] annotations = method.getAnnotations();
-        for (int i = 0; i < annotations.length; i++) {
-            Annotation a1 = annotations[i];
-            Class<? extends Annotation> a1Type = a1.annotationType();
-            AnnotatedMethod fh = iBean.hookModel.lookupAnnotationOnMethod(a1Type);
-            if (fh != null) {
-                Contributor contributor = iBean.computeContributor(fh.extensionType(), false);
-
-                IntrospectedBeanMethod pbm = new IntrospectedBeanMethod(iBean, contributor, method, annotations, fh.isInvokable());
-
-                contributor.introspector().onMethod(pbm);
-            }
+    static void introspectMethod(IntrospectedBean iBean, BeanClassModel.HookedMethod hooked) {
+        for (AnnotatedMethod fh : hooked.matches()) {
+            Contributor contributor = iBean.computeContributor(fh.extensionType(), false);
+
+            IntrospectedBeanMethod pbm = new IntrospectedBeanMethod(iBean, contributor, hooked.method(), hooked.annotations(), fh.isInvokable());
+
+            contributor.introspector().onMethod(pbm);
         }
     }
 }
@@ -12,6 +12,7 @@ import java.util.ArrayList;
 import app.packed.application.BuildException;
 import app.packed.container.Assembly;
 import app.packed.container.AssemblyHook;
+import app.packed.container.CacheableAssembly;
 import app.packed.container.ContainerConfiguration;
 import app.packed.container.DelegatingAssembly;
 import internal.app.packed.bean.BeanHookModel;
@@ -67,7 +68,7 @@ public final /* primitive */ class AssemblyModel {
             if (!hooks.isEmpty() && DelegatingAssembly.class.isAssignableFrom(type)) {
                 throw new BuildException("Delegating assemblies cannot use @" + AssemblyHook.class.getSimpleName() + " annotations, assembly type =" + type);
             }
-            return new AssemblyModel(type, hooks.toArray(s -> new AssemblyHook.Processor[s]));
+            return new AssemblyModel(type, hooks.toArray(s -> new AssemblyHook.Processor[s]), type.isAnnotationPresent(CacheableAssembly.class));
         }
     };
 
@@ -76,9 +77,13 @@ public final /* primitive */ class AssemblyModel {
 
     public final BeanHookModel hookModel;
 
-    private AssemblyModel(Class<?> assemblyClass, AssemblyHook.Processor[] hooks) {
+    /** Whether or not the assembly is annotated with {@link CacheableAssembly}. */
+    public final boolean isCacheable;
+
+    private AssemblyModel(Class<?> assemblyClass, AssemblyHook.Processor[] hooks, boolean isCacheable) {
         this.hooks = requireNonNull(hooks);
         this.hookModel = BeanHookModel.of(assemblyClass);
+        this.isCacheable = isCacheable;
     }
 
     public void postBuild(ContainerConfiguration configuration) {
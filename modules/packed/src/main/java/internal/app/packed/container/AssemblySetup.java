@@ -131,6 +131,10 @@ public final class AssemblySetup extends RealmSetup {
         // Invoke Assembly::doBuild, which in turn will invoke Assembly::build
         boolean isRoot = container.treeParent == null;
 
+        long start = System.nanoTime();
+        AssemblyBuildEvent event = new AssemblyBuildEvent();
+        event.begin();
+
         ApplicationBuildEvent abe = null;
 
         if (isRoot) {
@@ -161,6 +165,8 @@ public final class AssemblySetup extends RealmSetup {
         // Arrays.sort(exts);
 
         if (isRoot) {
+            long closing = System.nanoTime();
+
             // Root container
             // We must also close all extension trees.
             ArrayList<ExtensionSetup> list = new ArrayList<>(extensions.size());
@@ -172,18 +178,29 @@ public final class AssemblySetup extends RealmSetup {
                 e = extensions.pollFirst();
             }
 
+            long cycleCheck = System.nanoTime();
             CircularServiceDependencyChecker.dependencyCyclesFind(container);
+            long cycleCheckDone = System.nanoTime();
 
             // Close every extension tree
             for (ExtensionSetup extension : list) {
+                ExtensionCallbackEvent ece = new ExtensionCallbackEvent();
+                ece.begin();
                 try {
                     MH_EXTENSION_ON_APPLICATION_CLOSE.invokeExact(extension.instance());
                 } catch (Throwable t) {
                     throw ThrowableUtil.orUndeclared(t);
                 }
+                if (ece.shouldCommit()) {
+                    ece.extensionClass = extension.extensionType;
+                    ece.callback = "onApplicationClose";
+                    ece.commit();
+                }
 
                 extension.extensionRealm.close();
             }
+            application.statistics.rootAssemblyClosed(closing - start, cycleCheckDone - cycleCheck,
+                    (cycleCheck - closing) + (System.nanoTime() - cycleCheckDone));
 
             // The application has been built successfully.
             // If we need to launch it, generate code for it
@@ -198,13 +215,24 @@ public final class AssemblySetup extends RealmSetup {
                 e = extensions.pollFirst();
             }
         }
+
+        if (event.shouldCommit()) {
+            event.assemblyClass = assembly.getClass();
+            event.containerPath = container.path().toString();
+            event.commit();
+        }
     }
 
     public boolean isClosed() {
         return isClosed;
     }
 
-    /** {@return a mirror for this assembly.} */
+    /**
+     * {@return a mirror for this assembly.}
+     * <p>
+     * The mirror is also available if the application is built with {@link app.packed.container.Wirelet#leanBuild()}.
+     * As it only reads the assembly. But any other mirror reached from it, for example, its container, is not.
+     */
     public AssemblyMirror mirror() {
         AssemblyMirror mirror = ClassUtil.mirrorHelper(AssemblyMirror.class, AssemblyMirror::new, null);
 
@@ -218,11 +246,18 @@ public final class AssemblySetup extends RealmSetup {
     }
 
     private void onAssemblyClose(Extension<?> instance) {
+        ExtensionCallbackEvent event = new ExtensionCallbackEvent();
+        event.begin();
         try {
             MH_EXTENSION_ON_ASSEMBLY_CLOSE.invokeExact(instance);
         } catch (Throwable t) {
             throw ThrowableUtil.orUndeclared(t);
         }
+        if (event.shouldCommit()) {
+            event.extensionClass = instance.getClass();
+            event.callback = "onAssemblyClose";
+            event.commit();
+        }
     }
 
     /** {@inheritDoc} */
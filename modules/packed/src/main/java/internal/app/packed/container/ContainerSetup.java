@@ -70,6 +70,9 @@ public final class ContainerSetup extends AbstractTreeNode<ContainerSetup> {
     /** Maintains unique names for beans and child containers. */
     public final HashMap<String, Object> children = new HashMap<>();
 
+    /** The next suffix to try for a name prefix, used by {@link #addChildWithPrefix(String, Object)}. */
+    private final HashMap<String, int[]> childNameCounters = new HashMap<>();
+
     /** The depth of the component in the application tree. */
     public final int depth; // maintain in InsertionTree?
 
@@ -206,20 +209,57 @@ public final class ContainerSetup extends AbstractTreeNode<ContainerSetup> {
     }
 
     protected final void initializeNameWithPrefix(String name) {
-        String n = name;
-        if (treeParent != null) {
-            HashMap<String, Object> c = treeParent.children;
-            if (c.size() == 0) {
-                c.put(name, this);
-            } else {
-                int counter = 1;
-                while (c.putIfAbsent(n, this) != null) {
-                    n = name + counter++; // maybe store some kind of map<ComponentSetup, LongCounter> in BuildSetup.. for those that want to test adding 1
-                                          // million of the same component type
+        this.name = treeParent == null ? name : treeParent.addChildWithPrefix(name, this);
+    }
+
+    /**
+     * Adds a bean or container under the first free name among {@code prefix}, {@code prefix1}, {@code prefix2}, and so
+     * on.
+     * <p>
+     * Every name before the next suffix of a prefix is known to be in use. So adding many children with the same prefix
+     * is amortized constant time, instead of probing every name from the start.
+     *
+     * @param prefix
+     *            the name prefix
+     * @param child
+     *            the bean or container to add
+     * @return the name of the child
+     */
+    public String addChildWithPrefix(String prefix, Object child) {
+        if (children.putIfAbsent(prefix, child) == null) {
+            return prefix;
+        }
+        int[] next = childNameCounters.computeIfAbsent(prefix, k -> new int[] { 1 });
+        String n;
+        do {
+            n = prefix + next[0]++;
+        } while (children.putIfAbsent(n, child) != null);
+        return n;
+    }
+
+    /**
+     * Removes a bean or container with the specified name.
+     *
+     * @param name
+     *            the name of the child to remove
+     */
+    public void removeChild(String name) {
+        children.remove(name);
+        // The name may be reused. If it is a prefix followed by a suffix, the next suffix of the prefix is lowered to it.
+        // Since a prefix may end with digits itself, every split of the trailing digits is tried
+        int digits = name.length();
+        while (digits > 0 && name.charAt(digits - 1) >= '0' && name.charAt(digits - 1) <= '9') {
+            digits--;
+        }
+        for (int i = Math.max(digits, 1); i < name.length(); i++) {
+            // Suffixes never have leading zeros, or overflow
+            if (name.charAt(i) != '0' && name.length() - i < 10) {
+                int[] next = childNameCounters.get(name.substring(0, i));
+                if (next != null) {
+                    next[0] = Math.min(next[0], Integer.parseInt(name.substring(i)));
                 }
             }
         }
-        this.name = n;
     }
 
     /**
@@ -238,6 +278,7 @@ public final class ContainerSetup extends AbstractTreeNode<ContainerSetup> {
 
     /** {@return a new container mirror.} */
     public ContainerMirror mirror() {
+        application.checkMirrorsAvailable();
         ContainerMirror mirror = ClassUtil.mirrorHelper(ContainerMirror.class, ContainerMirror::new, specializedMirror);
 
         // Initialize ContainerMirror by calling ContainerMirror#initialize(ContainerSetup)
@@ -272,7 +313,7 @@ public final class ContainerSetup extends AbstractTreeNode<ContainerSetup> {
             if (treeParent.children.putIfAbsent(newName, this) != null) {
                 throw new IllegalArgumentException("A component with the specified name '" + newName + "' already exists");
             }
-            treeParent.children.remove(currentName);
+            treeParent.removeChild(currentName);
         }
         name = newName;
     }
@@ -280,7 +321,7 @@ public final class ContainerSetup extends AbstractTreeNode<ContainerSetup> {
     /** {@return the path of this component} */
     public NamespacePath path() {
         return switch (depth) {
-        case 0 -> NamespacePath.ROOT;
+        case 0 -> PackedNamespacePath.ROOT; // NamespacePath.ROOT may still be null while PackedNamespacePath is initialized
         case 1 -> new PackedNamespacePath(name);
         default -> {
             String[] paths = new String[depth];
@@ -345,8 +386,15 @@ public final class ContainerSetup extends AbstractTreeNode<ContainerSetup> {
 
             // Create the extension. (This will also add an entry to #extensions)
 
+            ExtensionActivationEvent event = new ExtensionActivationEvent();
+            event.begin();
             extension = new ExtensionSetup(extensionParent, this, extensionClass);
             extension.initialize();
+            if (event.shouldCommit()) {
+                event.extensionClass = extensionClass;
+                event.containerPath = path().toString();
+                event.commit();
+            }
         }
         return extension;
     }
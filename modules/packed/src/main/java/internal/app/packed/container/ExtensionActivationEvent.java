@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.container;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** An event that is emitted every time an extension is installed into a container. */
+@Name("app.packed.ExtensionActivation")
+@Label("Extension Activation")
+@Category({ "Packed", "Build" })
+@StackTrace(false)
+public final class ExtensionActivationEvent extends Event {
+
+    /** The class of the extension. */
+    @Label("Extension Class")
+    public Class<?> extensionClass;
+
+    /** The path of the container. */
+    @Label("Container Path")
+    public String containerPath;
+}
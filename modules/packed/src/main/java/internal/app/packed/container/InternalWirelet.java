@@ -15,7 +15,11 @@
  */
 package internal.app.packed.container;
 
+import java.util.List;
+
+import app.packed.application.BuildGoal;
 import app.packed.container.Wirelet;
+import app.packed.framework.Nullable;
 import internal.app.packed.application.ApplicationInitializationContext;
 import internal.app.packed.application.ApplicationSetup;
 
@@ -46,6 +50,18 @@ public abstract class InternalWirelet extends Wirelet {
 //        return driver;
 //    }
 
+    /**
+     * Returns an object that identifies the effect of this wirelet, used as part of the key when caching images of
+     * {@link app.packed.container.CacheableAssembly cacheable assemblies}. Fingerprints must implement equals and
+     * hashCode.
+     * 
+     * @return the fingerprint, or null if applications that are built with this wirelet cannot be cached
+     */
+    @Nullable
+    public Object fingerprint() {
+        return null;
+    }
+
     /**
      * Invoked by the runtime when the component is initially wired at build-time.
      * 
@@ -54,7 +70,7 @@ public abstract class InternalWirelet extends Wirelet {
      */
     protected abstract void onBuild(ContainerSetup component);
 
-    public void onImageInstantiation(ContainerSetup component, ApplicationInitializationContext context) {
+    public void onImageInstantiation(ApplicationInitializationContext context) {
         throw new IllegalArgumentException(
                 "The wirelet {" + getClass().getSimpleName() + "} must be specified at build-time. It cannot be specified when instantiating an image");
     }
@@ -94,6 +110,29 @@ public abstract class InternalWirelet extends Wirelet {
 //        }
 //    }
 
+    /** A wirelet that builds an application without data that is only needed for mirrors. Used by {@link Wirelet#leanBuild()}. */
+    public static final class LeanBuildWirelet extends InternalWirelet {
+
+        /** {@inheritDoc} */
+        @Override
+        protected void onBuild(ContainerSetup c) {
+            // The root container is created before ApplicationSetup#container is set, so we cannot use checkIsApplication
+            if (c.treeParent != null) {
+                throw new IllegalArgumentException("This wirelet can only be specified when wiring the root container of an application, wirelet = " + this);
+            }
+            if (c.application.goal == BuildGoal.NEW_MIRROR) {
+                throw new IllegalArgumentException("This wirelet cannot be specified when building a mirror, wirelet = " + this);
+            }
+            c.application.isLean = true;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Object fingerprint() {
+            return LeanBuildWirelet.class;
+        }
+    }
+
     /** A wirelet that will set the name of the component. Used by {@link Wirelet#named(String)}. */
     public static final class OverrideNameWirelet extends InternalWirelet {
 
@@ -110,6 +149,12 @@ public abstract class InternalWirelet extends Wirelet {
             this.name = NameCheck.checkComponentName(name); // throws IAE
         }
 
+        /** {@inheritDoc} */
+        @Override
+        public Object fingerprint() {
+            return List.of(OverrideNameWirelet.class, name);
+        }
+
         /** {@inheritDoc} */
         @Override
         protected void onBuild(ContainerSetup c) {
@@ -119,7 +164,7 @@ public abstract class InternalWirelet extends Wirelet {
 
         /** {@inheritDoc} */
         @Override
-        public void onImageInstantiation(ContainerSetup c, ApplicationInitializationContext ic) {
+        public void onImageInstantiation(ApplicationInitializationContext ic) {
             ic.name = name;
         }
     }
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.lifetime;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * An event that is emitted every time a bean is constructed and stored in the object arena of a lifetime.
+ * <p>
+ * The event is disabled by default. And is only emitted by applications that were built while the event was being
+ * recorded, as recording it adds a number of method handles to the launch of every bean.
+ */
+@Name("app.packed.BeanConstruction")
+@Label("Bean Construction")
+@Category({ "Packed", "Launch" })
+@StackTrace(false)
+@Enabled(false)
+public final class BeanConstructionEvent extends Event {
+
+    /** The class of the bean. */
+    @Label("Bean Class")
+    public Class<?> beanClass;
+}
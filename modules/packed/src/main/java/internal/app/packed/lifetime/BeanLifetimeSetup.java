@@ -17,10 +17,15 @@ package internal.app.packed.lifetime;
 
 import static java.util.Objects.requireNonNull;
 
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+
 import app.packed.bean.BeanKind;
 import app.packed.lifetime.BeanLifetimeMirror;
 import app.packed.lifetime.LifetimeMirror;
+import app.packed.lifetime.RunState;
 import internal.app.packed.bean.BeanSetup;
+import internal.app.packed.lifetime.LifetimeAccessor.LazyAccessor;
 
 /** The lifetime of a bean that is instantiated independently of the container in which it lives. */
 public final class BeanLifetimeSetup extends LifetimeSetup {
@@ -37,6 +42,24 @@ public final class BeanLifetimeSetup extends LifetimeSetup {
         return bean.beanKind == BeanKind.LAZY;
     }
 
+    /**
+     * Generates the method handles of a lazy bean. The bean is constructed by its factory operation, after which every
+     * initialization operation of the bean is invoked.
+     * 
+     * @param accessor
+     *            the accessor of the lazy bean
+     */
+    public void codegen(LazyAccessor accessor) {
+        ArrayList<MethodHandle> initialize = new ArrayList<>();
+        for (LifetimeOperation lop : bean.operationsLifetime) {
+            if (lop.state() == RunState.INITIALIZING) {
+                MethodHandle mh = lop.os().generateMethodHandle();
+                initialize.add(mh.asType(mh.type().changeReturnType(void.class)));
+            }
+        }
+        accessor.initialize(bean.operations.get(0).generateMethodHandle(), ContainerLifetimeSetup.fuse(initialize));
+    }
+
     /** {@inheritDoc} */
     @Override
     LifetimeMirror mirror0() {
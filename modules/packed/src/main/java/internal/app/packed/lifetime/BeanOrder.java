@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.lifetime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import app.packed.application.BuildException;
+import internal.app.packed.bean.BeanSetup;
+
+/**
+ * The beans of a container lifetime in dependency order. Every bean is placed after all the beans it depends on.
+ * <p>
+ * The order is computed once per lifetime, using Kahn's algorithm over an int-indexed view of the dependency graph.
+ * Beans from other lifetimes, for example, extension beans or lazy beans, take part in the ordering, so that transitive
+ * dependencies through them are respected. But they are not part of the result.
+ */
+public final class BeanOrder {
+
+    /** The beans of the lifetime in dependency order. */
+    public final List<BeanSetup> beans;
+
+    /**
+     * For each bean, the index (into {@link #beans}) of every bean of the lifetime that it depends on. Either directly
+     * or through beans outside of the lifetime.
+     */
+    final int[][] dependencies;
+
+    private BeanOrder(List<BeanSetup> beans, int[][] dependencies) {
+        this.beans = beans;
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * Orders the beans of the specified lifetime.
+     *
+     * @param lifetime
+     *            the lifetime
+     * @param roots
+     *            the beans to order, typically all beans of the lifetime
+     * @return the order
+     * @throws BuildException
+     *             if there are circular dependencies between beans
+     */
+    static BeanOrder of(ContainerLifetimeSetup lifetime, List<BeanSetup> roots) {
+        // Assign node numbers to all beans, including any beans outside of the lifetime that they depend on
+        ArrayList<BeanSetup> nodes = new ArrayList<>(roots);
+        IdentityHashMap<BeanSetup, Integer> indexes = new IdentityHashMap<>(roots.size());
+        for (int i = 0; i < roots.size(); i++) {
+            indexes.put(roots.get(i), i);
+        }
+
+        // The dependencies of all nodes in compressed form, nodes may be added while we iterate
+        int[] depStart = new int[nodes.size() + 16];
+        int[] deps = new int[16];
+        int depCount = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            if (i + 1 == depStart.length) {
+                depStart = Arrays.copyOf(depStart, depStart.length * 2);
+            }
+            depStart[i] = depCount;
+            for (BeanSetup b : nodes.get(i).dependsOn()) {
+                Integer index = indexes.get(b);
+                if (index == null) {
+                    index = nodes.size();
+                    indexes.put(b, index);
+                    nodes.add(b);
+                } else if (index == i) {
+                    continue; // a bean may use itself, for example, via a service it provides
+                }
+                if (depCount == deps.length) {
+                    deps = Arrays.copyOf(deps, deps.length * 2);
+                }
+                deps[depCount++] = index;
+            }
+        }
+        int n = nodes.size();
+        depStart[n] = depCount; // the loop above guarantees room for it
+
+        int[] order = sort(n, depStart, deps);
+        if (order.length != n) {
+            boolean[] sorted = new boolean[n];
+            for (int v : order) {
+                sorted[v] = true;
+            }
+            StringBuilder sb = new StringBuilder("Circular dependencies between beans:");
+            for (int i = 0; i < n; i++) {
+                if (!sorted[i]) {
+                    sb.append(' ').append(nodes.get(i).path());
+                }
+            }
+            throw new BuildException(sb.toString());
+        }
+
+        // Only keep beans that belong to the lifetime. A node outside of the lifetime is replaced by the beans of the
+        // lifetime that it (transitively) depends on. As the nodes are visited in dependency order, the beans that any
+        // node reaches are known before the node is visited
+        ArrayList<BeanSetup> result = new ArrayList<>(roots.size());
+        int[][] reaches = new int[n][];
+        int[][] dependencies = new int[n][];
+        int[] seen = new int[n];
+        Arrays.fill(seen, -1);
+        int[] buffer = new int[n];
+        for (int v : order) {
+            int count = 0;
+            for (int e = depStart[v]; e < depStart[v + 1]; e++) {
+                for (int q : reaches[deps[e]]) {
+                    if (seen[q] != v) {
+                        seen[q] = v;
+                        buffer[count++] = q;
+                    }
+                }
+            }
+            BeanSetup bean = nodes.get(v);
+            if (bean.lifetime == lifetime) {
+                int p = result.size();
+                result.add(bean);
+                dependencies[p] = Arrays.copyOf(buffer, count);
+                reaches[v] = new int[] { p };
+            } else {
+                reaches[v] = Arrays.copyOf(buffer, count);
+            }
+        }
+        return new BeanOrder(List.copyOf(result), Arrays.copyOf(dependencies, result.size()));
+    }
+
+    /**
+     * Sorts the nodes of a graph topologically using Kahn's algorithm.
+     *
+     * @param n
+     *            the number of nodes
+     * @param depStart
+     *            for each node, the index into {@code deps} of its first dependency, followed by the total number of
+     *            dependencies
+     * @param deps
+     *            the dependencies of all nodes
+     * @return the nodes in dependency order, fewer than {@code n} nodes if there are cycles
+     */
+    static int[] sort(int n, int[] depStart, int[] deps) {
+        int depCount = depStart[n];
+
+        // Invert the edges, Kahn's algorithm works from dependencies to dependents
+        int[] dependentStart = new int[n + 1];
+        for (int e = 0; e < depCount; e++) {
+            dependentStart[deps[e] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            dependentStart[i + 1] += dependentStart[i];
+        }
+        int[] dependents = new int[depCount];
+        int[] fill = Arrays.copyOf(dependentStart, n);
+        int[] inDegree = new int[n];
+        for (int i = 0; i < n; i++) {
+            inDegree[i] = depStart[i + 1] - depStart[i];
+            for (int e = depStart[i]; e < depStart[i + 1]; e++) {
+                dependents[fill[deps[e]]++] = i;
+            }
+        }
+
+        // The queue is also the resulting order
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < n; i++) {
+            if (inDegree[i] == 0) {
+                queue[tail++] = i;
+            }
+        }
+        while (head < tail) {
+            int v = queue[head++];
+            for (int e = dependentStart[v]; e < dependentStart[v + 1]; e++) {
+                int w = dependents[e];
+                if (--inDegree[w] == 0) {
+                    queue[tail++] = w;
+                }
+            }
+        }
+        return tail == n ? queue : Arrays.copyOf(queue, tail);
+    }
+}
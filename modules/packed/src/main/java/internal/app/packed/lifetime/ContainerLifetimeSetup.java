@@ -16,13 +16,11 @@
 package internal.app.packed.lifetime;
 
 import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Set;
 
-import app.packed.bean.BeanKind;
-import app.packed.bean.BeanSourceKind;
 import app.packed.framework.Nullable;
 import app.packed.lifetime.ContainerLifetimeMirror;
 import app.packed.lifetime.LifetimeMirror;
@@ -40,24 +38,31 @@ public final class ContainerLifetimeSetup extends LifetimeSetup {
     /** The root container of the lifetime. */
     public final ContainerSetup container;
 
-    ArrayList<OperationSetup> initialize = new ArrayList<>();
+    /** All initialization operations, in the order they are invoked. */
+    public final ArrayList<OperationSetup> initialize = new ArrayList<>();
 
     ArrayList<MethodHandle> initializeMh = new ArrayList<>();
 
     // All eagerly instantiated beans in order
     public final ArrayList<BeanSetup> beans = new ArrayList<>();
 
-    // Skal kopieres ind i internal lifetime launcher
-    public final ArrayList<MethodHandle> initializers = new ArrayList<>();
+    /**
+     * A method handle of type (PackedExtensionContext)void that populates the lifetime pool and invokes every
+     * initialization operation. Is null until the lifetime has been code generated.
+     */
+    @Nullable
+    public MethodHandle initializer;
 
     /** The lifetime constant pool. */
     public final LifetimeObjectArenaSetup pool = new LifetimeObjectArenaSetup();
 
-    ArrayList<LifetimeOperation> start = new ArrayList<>();
-    ArrayList<MethodHandle> startMh = new ArrayList<>();
-    ArrayList<LifetimeOperation> stop = new ArrayList<>();
+    /** The beans of the lifetime in dependency order. Is set when code generated. */
+    @Nullable
+    public BeanOrder order;
 
-    ArrayList<MethodHandle> stopMh = new ArrayList<>();
+    /** The start and stop operations of the lifetime, or null if there are none. Is set when code generated. */
+    @Nullable
+    public LifecyclePlan lifecycle;
 
     /**
      * @param origin
@@ -74,10 +79,46 @@ public final class ContainerLifetimeSetup extends LifetimeSetup {
     }
 
     public void codegen() {
-        for (BeanSetup bs : beans) {
-            orderBeans(bs);
+        order = BeanOrder.of(this, beans);
+        for (BeanSetup bs : order.beans) {
+            processBean(bs);
+        }
+        lifecycle = LifecyclePlan.of(order);
+
+        // Fuse populating the pool and all initialization operations into a single method handle
+        ArrayList<MethodHandle> steps = new ArrayList<>();
+        pool.codegen(steps);
+        for (MethodHandle mh : initializeMh) {
+            steps.add(mh.asType(mh.type().changeReturnType(void.class)));
         }
-        // generate MH
+
+        initializer = fuse(steps);
+    }
+
+    /**
+     * Fuses the specified steps into a single method handle of type (PackedExtensionContext)void that invokes them in order.
+     * 
+     * @param steps
+     *            method handles of type (PackedExtensionContext)void
+     * @return the fused method handle
+     */
+    public static MethodHandle fuse(List<MethodHandle> steps) {
+        return sequence(steps, 0, steps.size());
+    }
+
+    /**
+     * Combines the specified steps into a single method handle that invokes them in order. The steps are folded as a
+     * balanced tree, so the depth of the resulting method handle only grows logarithmically with the number of steps.
+     */
+    private static MethodHandle sequence(List<MethodHandle> steps, int from, int to) {
+        return switch (to - from) {
+        case 0 -> MethodHandles.empty(MethodType.methodType(void.class, PackedExtensionContext.class));
+        case 1 -> steps.get(from);
+        default -> {
+            int mid = (from + to) >>> 1;
+            yield MethodHandles.foldArguments(sequence(steps, mid, to), sequence(steps, from, mid));
+        }
+        };
     }
 
     public LifetimeSetup addChild(LifetimeSetup lifetime) {
@@ -98,43 +139,15 @@ public final class ContainerLifetimeSetup extends LifetimeSetup {
         return new ContainerLifetimeMirror();
     }
 
-    LinkedHashSet<BeanSetup> orderedBeans = new LinkedHashSet<>();
-
-    private void orderBeans(BeanSetup bean) {
-        Set<BeanSetup> dependsOn = bean.dependsOn();
-        for (BeanSetup b : dependsOn) {
-            orderBeans(b);
-        }
-        if (orderedBeans.add(bean)) {
-           // System.out.println("Codegen " + bean.path());
-            processBean(bean);
-            // addFactory, that installs the bean into Object[]
-            // then all initiali
-
-        }
-
-    }
-
     // Should be fully resolved now
     public void processBean(BeanSetup bs) {
-        if (bs.beanKind == BeanKind.CONTAINER || bs.beanKind == BeanKind.LAZY) {
-            if (bs.sourceKind != BeanSourceKind.INSTANCE) {
-                initialize.add(bs.operations.get(0));
-                initializeMh.add(bs.operations.get(0).generateMethodHandle());
-            }
-        }
-        
+        // Bean instances are created and stored by the lifetime pool, before any initialization operations are invoked
+        // Start and stop operations are handled by LifecyclePlan
         for (LifetimeOperation lop : bs.operationsLifetime) {
             if (lop.state() == RunState.INITIALIZING) {
                 initialize.add(lop.os());
                 initializeMh.add(lop.os().generateMethodHandle());
-            } else if (lop.state() == RunState.STARTING) {
-                start.add(lop);
-                startMh.add(lop.os().generateMethodHandle());
-            } else if (lop.state() == RunState.STOPPING) {
-                stop.add(lop);
-                stopMh.add(lop.os().generateMethodHandle());
-            } else {
+            } else if (lop.state() != RunState.STARTING && lop.state() != RunState.STOPPING) {
                 throw new Error();
             }
         }
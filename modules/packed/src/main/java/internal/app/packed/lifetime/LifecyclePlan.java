@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.lifetime;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import app.packed.lifetime.RunState;
+import internal.app.packed.bean.BeanSetup;
+import internal.app.packed.util.ThrowableUtil;
+
+/**
+ * The start and stop operations of a container lifetime, ordered by the dependencies between beans.
+ * <p>
+ * A bean is started once every bean it depends on has been started. Beans that do not depend on each other are started
+ * concurrently. Stopping is done in reverse order, a bean is stopped once every bean that depends on it has been
+ * stopped. The operations of a single bean are always invoked in the order they were added.
+ * <p>
+ * Operations are invoked by the thread that completed the bean they wait for, starting with the calling thread. Only
+ * when a bean completes and more than one bean is waiting for it, the extra beans are forked to the executor of the
+ * lifetime. So a plan where every bean depends on the previous bean is invoked entirely by the calling thread.
+ * <p>
+ * An operation that is marked as async, for example, via {@link app.packed.bean.OnStart#async()}, does not block beans
+ * that depend on it. But every async operation must complete before the transition is complete.
+ * <p>
+ * If starting fails, only the beans that entered start are stopped. That is, beans whose start operations were
+ * invoked, or that had no start operations but whose dependencies were all started.
+ */
+public final class LifecyclePlan {
+
+    /** An empty array of steps. */
+    private static final Step[] NO_STEPS = {};
+
+    /** The index of every bean that each bean depends on. */
+    private final int[][] dependencies;
+
+    /** The index of every bean that depends on each bean. */
+    private final int[][] dependents;
+
+    /** The start operations of each bean. */
+    private final Step[][] start;
+
+    /** The stop operations of each bean. */
+    private final Step[][] stop;
+
+    private LifecyclePlan(int[][] dependencies, int[][] dependents, Step[][] start, Step[][] stop) {
+        this.dependencies = dependencies;
+        this.dependents = dependents;
+        this.start = start;
+        this.stop = stop;
+    }
+
+    /** {@return a new array, for recording which beans entered start, see {@link #start(PackedExtensionContext, boolean[], Executor)}.} */
+    public boolean[] newStarted() {
+        return new boolean[start.length];
+    }
+
+    /**
+     * Starts every bean.
+     *
+     * @param pool
+     *            the lifetime pool
+     * @param started
+     *            an array created by {@link #newStarted()}, in which every bean that entered start is marked
+     * @param executor
+     *            the executor used for independent beans and async operations
+     * @throws RuntimeException
+     *             if any start operation failed
+     */
+    public void start(PackedExtensionContext pool, boolean[] started, Executor executor) {
+        run(pool, start, dependencies, false, started, executor);
+    }
+
+    /**
+     * Stops every bean. Every stop operation is invoked even if some of them fail.
+     *
+     * @param pool
+     *            the lifetime pool
+     * @param executor
+     *            the executor used for independent beans and async operations
+     * @throws RuntimeException
+     *             if any stop operation failed
+     */
+    public void stop(PackedExtensionContext pool, Executor executor) {
+        run(pool, stop, dependents, true, null, executor);
+    }
+
+    /**
+     * Stops every bean that entered start, after starting failed. Every stop operation is invoked even if some of them
+     * fail.
+     *
+     * @param pool
+     *            the lifetime pool
+     * @param started
+     *            the beans that entered start
+     * @param executor
+     *            the executor used for independent beans and async operations
+     * @throws RuntimeException
+     *             if any stop operation failed
+     */
+    public void stop(PackedExtensionContext pool, boolean[] started, Executor executor) {
+        Step[][] s = new Step[stop.length][];
+        for (int i = 0; i < s.length; i++) {
+            s[i] = started[i] ? stop[i] : NO_STEPS;
+        }
+        run(pool, s, dependents, true, null, executor);
+    }
+
+    /**
+     * Invokes the specified steps of every bean, once the beans it waits for have completed.
+     * 
+     * @param mark
+     *            if non-null, every bean whose steps are entered is marked
+     */
+    private static void run(PackedExtensionContext pool, Step[][] steps, int[][] waitFor, boolean reverse, boolean[] mark, Executor executor) {
+        int n = steps.length;
+        ConcurrentLinkedQueue<CompletableFuture<?>> async = new ConcurrentLinkedQueue<>();
+        CompletableFuture<?>[] done = new CompletableFuture<?>[n];
+
+        // Completed by the calling thread once every bean has been scheduled
+        CompletableFuture<Void> go = new CompletableFuture<>();
+
+        // Futures that already have a bean that is invoked by the thread completing them
+        Set<CompletableFuture<?>> claimed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int j = 0; j < n; j++) {
+            int i = reverse ? n - j - 1 : j;
+            int[] w = waitFor[i];
+            CompletableFuture<?> before = switch (w.length) {
+            case 0 -> go;
+            case 1 -> done[w[0]];
+            default -> {
+                CompletableFuture<?>[] f = new CompletableFuture<?>[w.length];
+                for (int k = 0; k < w.length; k++) {
+                    f[k] = done[w[k]];
+                }
+                yield CompletableFuture.allOf(f);
+            }
+            };
+            Step[] s = steps[i];
+            if (s.length == 0) {
+                done[i] = mark == null ? before : before.thenRun(() -> mark[i] = true);
+            } else {
+                boolean inline = claimed.add(before);
+                if (reverse) {
+                    // A failure to stop one bean, should not prevent other beans from being stopped
+                    before = before.exceptionally(e -> null);
+                }
+                Runnable r = () -> {
+                    if (mark != null) {
+                        mark[i] = true;
+                    }
+                    invoke(pool, s, async, executor);
+                };
+                done[i] = inline ? before.thenRun(r) : before.thenRunAsync(r, executor);
+            }
+        }
+        go.complete(null);
+
+        // Wait for every operation to complete, even if some have failed
+        Throwable failure = join(List.of(done), null);
+        failure = join(async, failure);
+        if (failure != null) {
+            throw ThrowableUtil.orUndeclared(failure);
+        }
+    }
+
+    private static void invoke(PackedExtensionContext pool, Step[] steps, Collection<CompletableFuture<?>> async, Executor executor) {
+        for (Step s : steps) {
+            if (s.async) {
+                async.add(CompletableFuture.runAsync(() -> s.invoke(pool), executor));
+            } else {
+                s.invoke(pool);
+            }
+        }
+    }
+
+    private static Throwable join(Collection<CompletableFuture<?>> futures, Throwable failure) {
+        for (CompletableFuture<?> f : futures) {
+            try {
+                f.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() == null ? e : e.getCause();
+                if (failure == null) {
+                    failure = cause;
+                } else if (failure != cause) {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+        return failure;
+    }
+
+    /**
+     * Creates a new plan, or returns null if none of the beans have any start or stop operations.
+     *
+     * @param order
+     *            the beans of the lifetime in dependency order
+     * @return the new plan, or null
+     */
+    static LifecyclePlan of(BeanOrder order) {
+        List<BeanSetup> beans = order.beans;
+        int n = beans.size();
+        boolean hasSteps = false;
+        Step[][] start = new Step[n][];
+        Step[][] stop = new Step[n][];
+        for (int i = 0; i < n; i++) {
+            ArrayList<Step> st = new ArrayList<>();
+            ArrayList<Step> sp = new ArrayList<>();
+            for (LifetimeOperation lop : beans.get(i).operationsLifetime) {
+                if (lop.state() == RunState.STARTING || lop.state() == RunState.STOPPING) {
+                    MethodHandle mh = lop.os().generateMethodHandle();
+                    Step s = new Step(mh.asType(mh.type().changeReturnType(void.class)), lop.async());
+                    (lop.state() == RunState.STARTING ? st : sp).add(s);
+                }
+            }
+            hasSteps |= !st.isEmpty() || !sp.isEmpty();
+            start[i] = st.toArray(Step[]::new);
+            stop[i] = sp.toArray(Step[]::new);
+        }
+        if (!hasSteps) {
+            return null;
+        }
+
+        int[][] dependencies = order.dependencies;
+        int[] dependentCount = new int[n];
+        for (int[] d : dependencies) {
+            for (int j : d) {
+                dependentCount[j]++;
+            }
+        }
+        int[][] dependents = new int[n][];
+        for (int i = 0; i < n; i++) {
+            dependents[i] = new int[dependentCount[i]];
+            dependentCount[i] = 0;
+        }
+        for (int i = 0; i < n; i++) {
+            for (int d : dependencies[i]) {
+                dependents[d][dependentCount[d]++] = i;
+            }
+        }
+        return new LifecyclePlan(dependencies, dependents, start, stop);
+    }
+
+    /** A single lifecycle operation. */
+    private record Step(MethodHandle mh, boolean async) {
+
+        void invoke(PackedExtensionContext pool) {
+            try {
+                mh.invokeExact(pool);
+            } catch (Throwable e) {
+                throw ThrowableUtil.orUndeclared(e);
+            }
+        }
+    }
+
+    /** {@return a new executor for invoking lifecycle operations, using daemon threads.} */
+    public static ExecutorService newExecutor() {
+        return Executors.newCachedThreadPool(new LifecycleThreadFactory());
+    }
+
+    /** Creates daemon threads for invoking lifecycle operations. */
+    private static final class LifecycleThreadFactory implements ThreadFactory {
+
+        /** Used for naming threads. */
+        private final AtomicInteger count = new AtomicInteger();
+
+        /** {@inheritDoc} */
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "packed-lifecycle-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
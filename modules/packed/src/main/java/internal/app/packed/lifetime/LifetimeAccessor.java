@@ -15,6 +15,14 @@
  */
 package internal.app.packed.lifetime;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import internal.app.packed.util.LookupUtil;
+import internal.app.packed.util.MethodHandleUtil;
+import internal.app.packed.util.ThrowableUtil;
+
 /**
  *
  */
@@ -26,31 +34,38 @@ public sealed interface LifetimeAccessor {
 
     void store(PackedExtensionContext pool, Object o);
     
-    public record ConstantAccessor(Object constant, Class<?> type) implements LifetimeAccessor {
-
-        public ConstantAccessor(Object constant) {
-            this(constant, constant.getClass());
-        }
+    /**
+     * An accessor for an object that is known at build time, for example, a bean instance that was installed via
+     * {@code installInstance}. Such objects are stored once in the shared segment of the lifetime arena, which is
+     * referenced, not copied, by every launch of an image.
+     */
+    public record SharedAccessor(Class<?> type, int index) implements LifetimeAccessor {
 
         /** {@inheritDoc} */
         @Override
-        public Class<?> type() {
-            return type;
+        public Object read(PackedExtensionContext pool) {
+            return pool.readShared(index);
         }
 
-        public Object read(PackedExtensionContext ignore) {
-            return constant;
+        /** {@return a method handle of type (PackedExtensionContext)T that reads the object from the shared segment.} */
+        public MethodHandle readHandle() {
+            MethodHandle mh = MethodHandles.insertArguments(PackedExtensionContext.MH_SHARED_READER, 1, index);
+            return MethodHandleUtil.castReturnType(mh, type);
         }
 
         /** {@inheritDoc} */
         @Override
         public void store(PackedExtensionContext pool, Object o) {
-            throw new UnsupportedOperationException();
+            throw new UnsupportedOperationException("Objects in the shared segment are frozen when the application is built, type = " + type);
         }
     }
 
     public record DynamicAccessor(Class<?> type, int index) implements LifetimeAccessor {
 
+        /** A method handle for calling {@link #storeNonNull(Object, PackedExtensionContext)}. */
+        private static final MethodHandle MH_STORE_NON_NULL = LookupUtil.lookupVirtual(MethodHandles.lookup(), "storeNonNull", void.class, Object.class,
+                PackedExtensionContext.class);
+
         public Object read(PackedExtensionContext pool) {
             return pool.read(index);
         }
@@ -61,5 +76,160 @@ public sealed interface LifetimeAccessor {
             }
             pool.storeObject(index, o);
         }
+
+        /** {@return a method handle of type (Object, PackedExtensionContext)void that stores a non-null object.} */
+        public MethodHandle storeHandle() {
+            return MH_STORE_NON_NULL.bindTo(this);
+        }
+
+        private void storeNonNull(Object o, PackedExtensionContext pool) {
+            if (o == null) {
+                throw new NullPointerException("Cannot store null, expected an instance of " + type);
+            }
+            store(pool, o);
+        }
+    }
+
+    /**
+     * An accessor for a lazy bean. The bean is instantiated and initialized, and stored in the pool, the first time it is
+     * read.
+     * <p>
+     * Reads use acquire semantics, so once the bean has been stored a read is a single load and a type check. On a miss,
+     * the first thread installs a {@link Creation} placeholder in the slot via compare-and-exchange, and creates the bean
+     * while holding the lock of the placeholder. Any other thread that sees the placeholder waits on the lock. So the
+     * factory is invoked exactly once per launch. If the factory fails, the slot is cleared and the next read will try
+     * again.
+     */
+    public static final class LazyAccessor implements LifetimeAccessor {
+
+        /** A method handle for calling {@link #read(PackedExtensionContext)}. */
+        private static final MethodHandle MH_READ = LookupUtil.lookupVirtual(MethodHandles.lookup(), "read", Object.class, PackedExtensionContext.class);
+
+        /** The method type of the factory. */
+        private static final MethodType FACTORY_TYPE = MethodType.methodType(Object.class, PackedExtensionContext.class);
+
+        /** The method type of the initializer. */
+        private static final MethodType INITIALIZER_TYPE = MethodType.methodType(void.class, PackedExtensionContext.class);
+
+        /** A method handle of type (PackedExtensionContext)Object that creates new instances, set doing code generation. */
+        private MethodHandle factory;
+
+        /** The index in the pool. */
+        private final int index;
+
+        /** A method handle of type (PackedExtensionContext)void that initializes new instances, set doing code generation. */
+        private MethodHandle initializer;
+
+        /** The type of bean. */
+        private final Class<?> type;
+
+        LazyAccessor(Class<?> type, int index) {
+            this.type = type;
+            this.index = index;
+        }
+
+        /** {@return the index in the pool.} */
+        public int index() {
+            return index;
+        }
+
+        /**
+         * Sets the method handles that are used to create the bean.
+         * 
+         * @param factory
+         *            a method handle of type (PackedExtensionContext)T that constructs the bean
+         * @param initializer
+         *            a method handle of type (PackedExtensionContext)void that invokes every initialization operation of
+         *            the bean
+         */
+        public void initialize(MethodHandle factory, MethodHandle initializer) {
+            this.factory = factory.asType(FACTORY_TYPE);
+            this.initializer = initializer.asType(INITIALIZER_TYPE);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Object read(PackedExtensionContext pool) {
+            Object instance = pool.readAcquire(index);
+            return instance == null || instance instanceof Creation ? create(pool, instance) : instance;
+        }
+
+        private Object create(PackedExtensionContext pool, Object existing) {
+            for (;;) {
+                if (existing == null) {
+                    Creation c = new Creation();
+                    // Take the lock before publishing the placeholder, so other threads will wait for us
+                    synchronized (c) {
+                        existing = pool.compareAndExchange(index, null, c);
+                        if (existing == null) {
+                            return c.create(this, pool);
+                        }
+                    }
+                } else if (existing instanceof Creation c) {
+                    if (c.owner == Thread.currentThread()) {
+                        // The bean is read by one of its own initialization operations
+                        if (c.instance == null) {
+                            throw new IllegalStateException("Lazy bean of type " + type + " depends on itself");
+                        }
+                        return c.instance;
+                    }
+                    // Wait for the other thread to finish, and reread the slot
+                    synchronized (c) {
+                        existing = pool.readAcquire(index);
+                    }
+                } else {
+                    return existing;
+                }
+            }
+        }
+
+        /** {@return a method handle of type (PackedExtensionContext)T that reads (and if needed creates) the bean.} */
+        public MethodHandle readHandle() {
+            return MethodHandleUtil.castReturnType(MH_READ.bindTo(this), type);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void store(PackedExtensionContext pool, Object o) {
+            throw new UnsupportedOperationException("Lazy beans are created on first use, and cannot be stored, type = " + type);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Class<?> type() {
+            return type;
+        }
+
+        /** A placeholder that is stored in the slot of a lazy bean, while the bean is being created. */
+        private static final class Creation {
+
+            /** The instance, once it has been constructed. Only read by the owner. */
+            private Object instance;
+
+            /** The thread that creates the bean. */
+            private final Thread owner = Thread.currentThread();
+
+            /** Constructs and initializes the bean. Must be called while holding the lock of this object. */
+            private Object create(LazyAccessor accessor, PackedExtensionContext pool) {
+                boolean stored = false;
+                try {
+                    Object o = accessor.factory.invokeExact(pool);
+                    if (o == null) {
+                        throw new NullPointerException("Cannot store null, expected an instance of " + accessor.type);
+                    }
+                    instance = o;
+                    accessor.initializer.invokeExact(pool);
+                    pool.storeRelease(accessor.index, o);
+                    stored = true;
+                    return o;
+                } catch (Throwable e) {
+                    throw ThrowableUtil.orUndeclared(e);
+                } finally {
+                    if (!stored) {
+                        pool.storeRelease(accessor.index, null);
+                    }
+                }
+            }
+        }
     }
 }
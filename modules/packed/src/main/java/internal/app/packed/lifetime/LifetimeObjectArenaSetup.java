@@ -15,67 +15,159 @@
  */
 package internal.app.packed.lifetime;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.ArrayList;
-import java.util.function.Consumer;
+import java.util.function.BiConsumer;
 
-import internal.app.packed.application.ApplicationInitializationContext;
 import internal.app.packed.lifetime.LifetimeAccessor.DynamicAccessor;
+import internal.app.packed.lifetime.LifetimeAccessor.LazyAccessor;
+import internal.app.packed.lifetime.LifetimeAccessor.SharedAccessor;
+import internal.app.packed.operation.OperationSetup;
+import internal.app.packed.util.LookupUtil;
 
 /**
- *
+ * The setup of the object arena of a container lifetime.
+ * <p>
+ * The arena consists of two segments. A shared segment of objects that are known at build time, for example, beans
+ * installed via {@code installInstance}. And a per-launch segment of objects that are created every time the
+ * application is launched. Objects in the shared segment are reserved via {@link #reserveShared(Object)} and are
+ * frozen into a single array once the application has been built. Every launch of an image references that array. Only
+ * the per-launch segment is allocated, and populated, on each launch.
  */
 
 // Vi kan sagtens folde bedste foraeldre ind ogsaa...
 // Altsaa bruger man kun et enkelt object kan vi jo bare folde det ind...
 //[ [GrandParent][Parent], O1, O2, O3]
 
-//Der er faktisk 2 strategier her...
-//RepeatableImage -> Har vi 2 pools taenker jeg... En shared, og en per instans
-//Ikke repeatable.. Kav vi lave vi noget af array'et paa forhaand... F.eks. smide
-//bean instancerne ind i det
-
 //Saa maaske er pool og Lifetime to forskellige ting???
-//
-// Long term.. Could we rewrite all the indexes for images. In this way we could store all constants in another array that we would just reference
 public final class LifetimeObjectArenaSetup {
 
-    /** All constants that should be stored in the constant pool. */
-    private final ArrayList<Consumer<? super PackedExtensionContext>> entries = new ArrayList<>();
+    /** The method type of a factory whose result is stored in the pool. */
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(Object.class, PackedExtensionContext.class);
+
+    /** A method handle for {@link #eventBegin()}. */
+    private static final MethodHandle MH_EVENT_BEGIN = LookupUtil.lookupStatic(MethodHandles.lookup(), "eventBegin", BeanConstructionEvent.class);
+
+    /** A method handle for {@link #eventCommit(BeanConstructionEvent, Class)}. */
+    private static final MethodHandle MH_EVENT_COMMIT = LookupUtil.lookupStatic(MethodHandles.lookup(), "eventCommit", void.class,
+            BeanConstructionEvent.class, Class.class);
+
+    /** All operations whose result should be stored in the constant pool. */
+    private final ArrayList<Entry> entries = new ArrayList<>();
 
     public final ArrayList<Runnable> postProcessing = new ArrayList<>();
 
-    /** The size of the pool. */
+    /** The objects in the shared segment. */
+    private final ArrayList<Object> shared = new ArrayList<>();
+
+    /** The size of the per-launch segment. */
     private int size;
 
     LifetimeObjectArenaSetup() {}
 
-    public void addOrdered(Consumer<? super PackedExtensionContext> c) {
-        // new Exception().printStackTrace();
-        // We just keep both these 2 method that does the same for now
-        entries.add(c);
+    public void addOrdered(OperationSetup operation, DynamicAccessor accessor) {
+        entries.add(new Entry(operation, accessor));
+    }
+
+    /**
+     * Performs the specified action for every operation whose result is stored in the per-launch segment, in the order
+     * the operations are invoked.
+     * 
+     * @param action
+     *            the action to perform
+     */
+    public void forEachEntry(BiConsumer<? super OperationSetup, ? super DynamicAccessor> action) {
+        for (Entry e : entries) {
+            action.accept(e.operation, e.accessor);
+        }
     }
 
-    public PackedExtensionContext newRuntimePool(ApplicationInitializationContext launchContext) {
-        PackedExtensionContext pool = PackedExtensionContext.create(size);
+    /**
+     * Generates a method handle of type (PackedExtensionContext)void for each entry in the pool. Each of which invokes the
+     * entry's operation and stores the result in the pool.
+     * 
+     * @param steps
+     *            the list to add the generated method handles to
+     */
+    void codegen(ArrayList<MethodHandle> steps) {
+        // Bean construction events are only folded into the launch if they are being recorded when the application is
+        // built. Otherwise, the construction of beans is only covered by the single LifetimeInitializationEvent
+        boolean recordConstruction = new BeanConstructionEvent().isEnabled();
+        for (Entry e : entries) {
+            MethodHandle factory = e.operation.generateMethodHandle().asType(FACTORY_TYPE);
+            MethodHandle step = MethodHandles.foldArguments(e.accessor.storeHandle(), factory);
 
-        
-        if (launchContext.runtime != null) {
-            launchContext.application.runtimeAccessor.store(pool, launchContext.runtime);
+            // Record the construction of beans as BeanConstructionEvent
+            if (recordConstruction && e.operation.bean.lifetimePoolAccessor == e.accessor) {
+                MethodHandle commit = MethodHandles.insertArguments(MH_EVENT_COMMIT, 1, e.operation.bean.beanClass);
+                commit = MethodHandles.dropArguments(commit, 1, PackedExtensionContext.class);
+                step = MethodHandles.foldArguments(commit, MethodHandles.dropArguments(step, 0, BeanConstructionEvent.class));
+                step = MethodHandles.foldArguments(step, MH_EVENT_BEGIN);
+            }
+            steps.add(step);
         }
-        
-        for (Consumer<? super PackedExtensionContext> e : entries) {
-            e.accept(pool);
+    }
+
+    private static BeanConstructionEvent eventBegin() {
+        BeanConstructionEvent event = new BeanConstructionEvent();
+        event.begin();
+        return event;
+    }
+
+    private static void eventCommit(BeanConstructionEvent event, Class<?> beanClass) {
+        if (event.shouldCommit()) {
+            event.beanClass = beanClass;
+            event.commit();
         }
+    }
+
+    /**
+     * Adds an object that is known at build time to the shared segment.
+     * 
+     * @param constant
+     *            the object to add
+     * @return an accessor for the object
+     */
+    public SharedAccessor reserveShared(Object constant) {
+        shared.add(constant);
+        return new SharedAccessor(constant.getClass(), shared.size() - 1);
+    }
+
+    /** {@return a new array containing the objects in the shared segment.} */
+    public Object[] sharedObjects() {
+        return shared.toArray();
+    }
 
-        return pool;
+    /** {@return the number of objects in the shared segment.} */
+    public int sharedSize() {
+        return shared.size();
+    }
+
+    /** {@return the number of slots in the per-launch segment.} */
+    public int size() {
+        return size;
     }
 
     /**
-     * Reserves room for a single object.
+     * Reserves room for a single object in the per-launch segment.
      * 
      * @return the index to store the object in at runtime
      */
     public DynamicAccessor reserve(Class<?> type) {
         return new DynamicAccessor(type, size++);
     }
+
+    /**
+     * Reserves room for a single lazily created object in the per-launch segment.
+     * 
+     * @return an accessor that creates the object on first access
+     */
+    public LazyAccessor reserveLazy(Class<?> type) {
+        return new LazyAccessor(type, size++);
+    }
+
+    /** An operation whose result is stored in the pool. */
+    private record Entry(OperationSetup operation, DynamicAccessor accessor) {}
 }
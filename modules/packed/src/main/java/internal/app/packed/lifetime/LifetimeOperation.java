@@ -19,8 +19,18 @@ import app.packed.lifetime.RunState;
 import internal.app.packed.operation.OperationSetup;
 
 /**
+ * A lifetime operation of a bean.
  *
+ * @param state
+ *            the state in which the operation is invoked
+ * @param os
+ *            the operation
+ * @param async
+ *            whether or not the operation can complete asynchronously, see {@link app.packed.bean.OnStart#async()}
  */
-public record LifetimeOperation(RunState state, OperationSetup os) {
+public record LifetimeOperation(RunState state, OperationSetup os, boolean async) {
 
+    public LifetimeOperation(RunState state, OperationSetup os) {
+        this(state, os, false);
+    }
 }
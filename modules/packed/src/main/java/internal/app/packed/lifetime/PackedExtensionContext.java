@@ -17,6 +17,7 @@ package internal.app.packed.lifetime;
 
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 
 import app.packed.extension.ExtensionContext;
 import internal.app.packed.util.LookupUtil;
@@ -30,21 +31,47 @@ public final /* primitive */ class PackedExtensionContext implements ExtensionCo
     /** A method handle for calling {@link #read(int)} at runtime. */
     public static final MethodHandle MH_CONSTANT_POOL_READER = LookupUtil.lookupVirtual(MethodHandles.lookup(), "read", Object.class, int.class);
 
-    public static final PackedExtensionContext EMPTY = new PackedExtensionContext(0);
+    /** A method handle for calling {@link #readShared(int)} at runtime. */
+    public static final MethodHandle MH_SHARED_READER = LookupUtil.lookupVirtual(MethodHandles.lookup(), "readShared", Object.class, int.class);
+
+    /** A var handle for accessing the elements of {@link #objects} with memory ordering effects. */
+    private static final VarHandle VH_OBJECTS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    /** An empty array of shared objects. */
+    private static final Object[] NO_SHARED = new Object[0];
+
+    public static final PackedExtensionContext EMPTY = new PackedExtensionContext(NO_SHARED, 0);
     
+    /** The per-launch segment. */
     private final Object[] objects;
 
-    private PackedExtensionContext(int size) {
-        objects = new Object[size];
+    /** The shared segment, the same array is used by every launch of an image. */
+    private final Object[] shared;
+
+    private PackedExtensionContext(Object[] shared, int size) {
+        this.objects = new Object[size];
+        this.shared = shared;
     }
 
     public static PackedExtensionContext create(int size) {
-        if (size == 0) {
+        return create(NO_SHARED, size);
+    }
+
+    /**
+     * Creates a new context.
+     * 
+     * @param shared
+     *            the shared segment, is not copied
+     * @param size
+     *            the size of the per-launch segment
+     * @return the new context
+     */
+    public static PackedExtensionContext create(Object[] shared, int size) {
+        if (size == 0 && shared.length == 0) {
             return EMPTY;
         } else {
-            return new PackedExtensionContext(size);
+            return new PackedExtensionContext(shared, size);
         }
-
     }
 
     public void print() {
@@ -63,6 +90,61 @@ public final /* primitive */ class PackedExtensionContext implements ExtensionCo
         return objects[index];
     }
 
+    /**
+     * Reads an object from the shared segment.
+     * 
+     * @param index
+     *            the index of the object in the shared segment
+     * @return the object
+     */
+    public Object readShared(int index) {
+        return shared[index];
+    }
+
+    /** {@return the shared segment.} */
+    Object[] shared() {
+        return shared;
+    }
+
+    /**
+     * Reads the object at the specified index with acquire semantics. Used for objects that may be stored concurrently.
+     * 
+     * @param index
+     *            the index to read
+     * @return the object at the index, or null if no object has been stored yet
+     * @see #compareAndExchange(int, Object, Object)
+     */
+    public Object readAcquire(int index) {
+        return VH_OBJECTS.getAcquire(objects, index);
+    }
+
+    /**
+     * Atomically stores an object at the specified index, if the current object at the index is the expected object.
+     * 
+     * @param index
+     *            the index to store the object at
+     * @param expected
+     *            the expected object
+     * @param instance
+     *            the object to store
+     * @return the object that was stored at the index, the store succeeded if it is the expected object
+     */
+    public Object compareAndExchange(int index, Object expected, Object instance) {
+        return VH_OBJECTS.compareAndExchange(objects, index, expected, instance);
+    }
+
+    /**
+     * Stores an object at the specified index with release semantics.
+     * 
+     * @param index
+     *            the index to store the object at
+     * @param instance
+     *            the object to store, or null to clear the index
+     */
+    public void storeRelease(int index, Object instance) {
+        VH_OBJECTS.setRelease(objects, index, instance);
+    }
+
     public void storeObject(int index, Object instance) {
         if (objects[index] != null) {
             throw new IllegalStateException();
@@ -73,7 +155,7 @@ public final /* primitive */ class PackedExtensionContext implements ExtensionCo
     /** {@inheritDoc} */
     @Override
     public String toString() {
-        return "ConstantPool [size = " + objects.length + "]";
+        return "ConstantPool [size = " + objects.length + ", shared = " + shared.length + "]";
     }
     
     public static MethodHandle constant(Class<?> type, Object constant) {
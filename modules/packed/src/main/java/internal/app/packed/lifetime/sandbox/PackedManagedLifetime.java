@@ -15,151 +15,253 @@
  */
 package internal.app.packed.lifetime.sandbox;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.TimeoutException;
 
 import app.packed.lifetime.RunState;
 import app.packed.lifetime.sandbox.LifetimeState;
 import app.packed.lifetime.sandbox.ManagedLifetimeController;
 import app.packed.lifetime.sandbox.StopOption;
 import internal.app.packed.application.ApplicationInitializationContext;
-import internal.app.packed.application.ApplicationSetup;
-import internal.app.packed.application.EntryPointSetup;
+import internal.app.packed.application.PackedApplicationLauncher;
+import internal.app.packed.lifetime.LifecyclePlan;
+import internal.app.packed.util.LookupUtil;
+import internal.app.packed.util.ThrowableUtil;
 
 /**
- *
+ * A managed lifetime implemented as a lock-free state machine.
+ * <p>
+ * The current state, the desired state and an error bit are packed into a single long that is only ever updated via
+ * compare-and-set. Reading the state is a single volatile read. Waiting for a state is done via a per-state future that
+ * is completed once the lifetime has entered the state. If the lifetime passes a state without entering it, for example,
+ * if it fails to start, the future of the state is completed exceptionally.
  */
-// Altsaa det fede var jo hvis vi kunne lave en generisk statemachine.
-/// current state + Mask
-/// Error bit (data = 
-// Desired state + Mask
-// Extra data... Startup/Initialization exception
 public final class PackedManagedLifetime implements ManagedLifetimeController {
 
-    // Sagtens encode det i sync ogsaa
-    RunState desiredState = RunState.UNINITIALIZED;
+    /** The number of states. */
+    private static final RunState[] STATES = RunState.values();
 
-    /**
-     * A lock used for lifecycle control of the component. If components are arranged in a hierarchy and multiple components
-     * need to be locked. A child component must lock itself before locking the parent.
-     */
-    final ReentrantLock lock = new ReentrantLock();
+    /** Set if the lifetime failed to start or stop. */
+    private static final long ERROR_BIT = 1L << 16;
+
+    /** A var handle for {@link #word}. */
+    private static final VarHandle VH_WORD = LookupUtil.lookupVarHandle(MethodHandles.lookup(), "word", long.class);
+
+    /** Futures that are completed when the corresponding state has been reached. Indexed by state ordinal. */
+    private final CompletableFuture<?>[] reached = new CompletableFuture<?>[STATES.length];
+
+    /** Invokes lifecycle operations of independent beans and async operations, created on first use. */
+    private ExecutorService executor;
+
+    /** Submits tasks to {@link #executor}, creating it if needed. */
+    private final Executor lifecycleExecutor = r -> executor().execute(r);
 
-    /** A condition used for waiting on state changes from {@link #await(RunState, long, TimeUnit)}. */
-    final Condition lockAwaitState = lock.newCondition();
+    /** The first failure to start or stop, or null if the lifetime has not failed. */
+    private volatile Throwable failure;
 
-    // Taenker vi maaske gaar tilbage til det design hvor vi havde en abstract state klasse... med
-    // en implementering per state... Er jo mest brugbart i forbindelse med start/stop hvor vi har noget
-    // midlertidigt state,paa den anden side kan vi maaske have lidt mindre state?
-    volatile RunState state = RunState.UNINITIALIZED;
+    /** The launch context of the application. */
+    private final ApplicationInitializationContext launchContext;
 
-    public PackedManagedLifetime(ApplicationInitializationContext launchContext) {}
+    /** Bits 0-7 the current state, bits 8-15 the desired state, bit 16 the error bit. Only updated via {@link #VH_WORD}. */
+    private volatile long word = pack(RunState.UNINITIALIZED, RunState.UNINITIALIZED, false);
+
+    public PackedManagedLifetime(ApplicationInitializationContext launchContext) {
+        this.launchContext = launchContext;
+        for (int i = 0; i < reached.length; i++) {
+            reached[i] = new CompletableFuture<>();
+        }
+        reached[0].complete(null);
+    }
 
-    // Hmm, maybe not
-//    @Nullable
-//    final PackedContainer parent;
     /** {@inheritDoc} */
     @Override
     public void await(RunState state) throws InterruptedException {
-        final ReentrantLock lock = this.lock;
-        lock.lock();
         try {
-            for (;;) {
-                if (state.ordinal() <= state().ordinal()) {
-                    return;
-                }
-                lockAwaitState.await();
-            }
-        } finally {
-            lock.unlock();
+            reached[state.ordinal()].get();
+        } catch (ExecutionException e) {
+            throw skipped(e);
         }
     }
 
     /** {@inheritDoc} */
     @Override
     public boolean await(RunState state, long timeout, TimeUnit unit) throws InterruptedException {
-        long nanos = unit.toNanos(timeout);
-        final ReentrantLock lock = this.lock;
-        lock.lock();
+        CompletableFuture<?> f = reached[state.ordinal()];
         try {
-            for (;;) {
-                if (state.ordinal() <= state().ordinal()) {
-                    return true;
-                } else if (nanos <= 0) {
-                    return false;
+            f.get(timeout, unit);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            throw skipped(e);
+        }
+    }
+
+    /**
+     * Attempts to update the state word.
+     *
+     * @return true if the update succeeded
+     */
+    private boolean cas(long expected, RunState state, RunState desired, boolean error) {
+        long next = pack(state, desired, error);
+        if (VH_WORD.compareAndSet(this, expected, next)) {
+            // Any states between the old and the new state were never entered
+            RunState from = state(expected);
+            for (int i = from.ordinal() + 1; i < state.ordinal(); i++) {
+                reached[i].completeExceptionally(new IllegalStateException("The lifetime went from " + from + " to " + state + " without entering " + STATES[i]));
+            }
+            reached[state.ordinal()].complete(null);
+            return true;
+        }
+        return false;
+    }
+
+    /** Starts every bean, stopping the application again if any bean fails to start. */
+    private void doStart() {
+        LifecyclePlan plan = launchContext.launcher.lifecycle;
+        if (plan != null) {
+            boolean[] started = plan.newStarted();
+            try {
+                plan.start(launchContext.pool(), started, lifecycleExecutor);
+            } catch (RuntimeException | Error e) {
+                setError(e);
+                // Beans that have been (partially) started are guaranteed to be stopped, in reverse order
+                try {
+                    doStop(started);
+                } catch (Throwable t) {
+                    e.addSuppressed(t);
                 }
-                nanos = lockAwaitState.awaitNanos(nanos);
+                throw e;
             }
+        }
+    }
+
+    /**
+     * Stops the beans of the lifetime.
+     * 
+     * @param started
+     *            the beans that entered start, or null to stop every bean
+     */
+    private void doStop(boolean[] started) {
+        transition(RunState.STOPPING);
+        try {
+            LifecyclePlan plan = launchContext.launcher.lifecycle;
+            if (plan != null) {
+                if (started == null) {
+                    plan.stop(launchContext.pool(), lifecycleExecutor);
+                } else {
+                    plan.stop(launchContext.pool(), started, lifecycleExecutor);
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            setError(e);
+            throw e;
         } finally {
-            lock.unlock();
+            transition(RunState.TERMINATED);
+            shutdownExecutor();
+        }
+    }
+
+    /** {@return the executor for lifecycle operations, creating it if needed.} */
+    private synchronized ExecutorService executor() {
+        ExecutorService e = executor;
+        if (e == null) {
+            executor = e = LifecyclePlan.newExecutor();
+        }
+        return e;
+    }
+
+    /** Shuts down the executor for lifecycle operations, if it has been created. Every operation has completed by now. */
+    private synchronized void shutdownExecutor() {
+        if (executor != null) {
+            executor.shutdown();
         }
     }
 
     /** {@inheritDoc} */
     @Override
     public LifetimeState info() {
-        return null;
+        long w = word;
+        return new Snapshot(state(w), desired(w), isError(w), Optional.ofNullable(failure));
     }
 
-    public void launch(ApplicationSetup application, ApplicationInitializationContext launchContext) {
-        boolean isMain = false;
-        if (application.entryPoints != null) {
-            isMain = application.entryPoints.hasMain();
-        }
-        boolean start = isMain;
-        final ReentrantLock lock = this.lock;
+    /**
+     * Invoked once the lifetime has been initialized.
+     * 
+     * @param launchContext
+     *            the launch context
+     * @throws IllegalStateException
+     *             if the lifetime has already been launched
+     */
+    public void launch(ApplicationInitializationContext launchContext) {
+        PackedApplicationLauncher launcher = launchContext.launcher;
+        boolean start = launcher.hasMain;
 
-        lock.lock();
-        try {
-            if (!start) {
-                this.state = RunState.INITIALIZED;
-                this.desiredState = RunState.INITIALIZED;
-                return;
-            } else {
-                this.state = RunState.STARTING;
-                this.desiredState = RunState.RUNNING;
-            }
-        } finally {
-            lock.unlock();
+        // The lifetime is initialized by the launch context before this method is called
+        long w = word;
+        if (state(w) != RunState.UNINITIALIZED || !cas(w, RunState.INITIALIZING, RunState.INITIALIZED, false)) {
+            throw new IllegalStateException("The lifetime has already been launched");
         }
 
-        lock.lock();
-        try {
-            this.state = RunState.RUNNING;
-            this.desiredState = RunState.RUNNING;
-            if (!isMain) {
-                return;
-            }
-        } finally {
-            lock.unlock();
+        // A bean might have stopped the lifetime while it was initializing, in which case we do not start it
+        w = word;
+        if (state(w) != RunState.INITIALIZING || !cas(w, RunState.INITIALIZED, RunState.INITIALIZED, isError(w)) || !start) {
+            return;
         }
+        start();
 
-        EntryPointSetup ep = application.entryPoints;
+        MethodHandle ep = launcher.entryPoint;
         if (ep != null) {
-            ep.enter(launchContext);
+            try {
+                ep.invokeExact(launchContext.pool());
+            } catch (Throwable e) {
+                throw ThrowableUtil.orUndeclared(e);
+            }
         }
 
         // todo run execution block
 
         // shutdown
+    }
 
+    private void setError(Throwable t) {
+        if (failure == null) {
+            failure = t;
+        }
+        long w;
+        do {
+            w = word;
+        } while (!VH_WORD.compareAndSet(this, w, w | ERROR_BIT));
     }
 
     /** {@inheritDoc} */
     @Override
     public void start() {
-        final ReentrantLock lock = this.lock;
-        lock.lock();
-        try {
-            if (state == RunState.UNINITIALIZED) {
-                throw new IllegalStateException("Cannot call this method now");
+        for (;;) {
+            long w = word;
+            switch (state(w)) {
+            case UNINITIALIZED, INITIALIZING -> throw new IllegalStateException("Cannot call this method now");
+            case STARTING, RUNNING -> {
+                return;
+            }
+            case STOPPING, TERMINATED -> throw new IllegalStateException("Cannot start an application that has been stopped");
+            default -> {
+                if (cas(w, RunState.STARTING, RunState.RUNNING, false)) {
+                    doStart();
+                    startCompleted();
+                    return;
+                }
+            }
             }
-            throw new UnsupportedOperationException();
-        } finally {
-            lock.unlock();
         }
     }
 
@@ -172,40 +274,133 @@ public final class PackedManagedLifetime implements ManagedLifetimeController {
         });
     }
 
+    /**
+     * Transitions from starting to running. Or stops the lifetime, if stop was requested while starting.
+     * <p>
+     * The transition is a single compare-and-set, so only the starting thread can ever move the lifetime out of the
+     * starting state. And a concurrent {@link #stop(StopOption...)} only records the request as the desired state.
+     */
+    private void startCompleted() {
+        for (;;) {
+            long w = word;
+            if (state(w) != RunState.STARTING) {
+                return; // failed to start
+            }
+            if (desired(w) == RunState.TERMINATED) {
+                // Go directly from starting to stopping, we never enter running
+                if (cas(w, RunState.STOPPING, RunState.TERMINATED, isError(w))) {
+                    doStop(null);
+                    return;
+                }
+            } else if (cas(w, RunState.RUNNING, RunState.RUNNING, isError(w))) {
+                return;
+            }
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public RunState state() {
-        return state;
+        return state(word);
     }
 
     /** {@inheritDoc} */
     @Override
-    public void stop(StopOption... options) {}
+    public void stop(StopOption... options) {
+        for (;;) {
+            long w = word;
+            RunState state = state(w);
+            switch (state) {
+            case RUNNING -> {
+                if (cas(w, RunState.STOPPING, RunState.TERMINATED, isError(w))) {
+                    doStop(null);
+                    return;
+                }
+            }
+            case STARTING -> {
+                // A starting lifetime is stopped once it has been started
+                if (cas(w, state, RunState.TERMINATED, isError(w))) {
+                    return;
+                }
+            }
+            case STOPPING, TERMINATED -> {
+                return;
+            }
+            default -> { // Never started, so there is nothing to stop
+                if (cas(w, RunState.TERMINATED, RunState.TERMINATED, isError(w))) {
+                    return;
+                }
+            }
+            }
+        }
+    }
 
     /** {@inheritDoc} */
     @Override
     public <T> CompletableFuture<T> stopAsync(T result, StopOption... options) {
-        return null;
+        return CompletableFuture.supplyAsync(() -> {
+            stop(options);
+            return result;
+        });
     }
 
-    // Tag T istedet for container...
-    public <T> CompletionStage<T> whenAt(RunState state, T object) {
-        if (state().ordinal() >= state.ordinal()) {
-            return CompletableFuture.completedFuture(object);
+    /**
+     * Moves the lifetime forward to the specified state, keeping the desired state and error bit.
+     *
+     * @param state
+     *            the state to move to
+     */
+    private void transition(RunState state) {
+        for (;;) {
+            long w = word;
+            if (state(w).ordinal() >= state.ordinal() || cas(w, state, desired(w), isError(w))) {
+                return;
+            }
         }
-        final ReentrantLock lock = this.lock;
-        lock.lock();
-        try {
-            throw new UnsupportedOperationException();
-        } finally {
-            lock.unlock();
+    }
+
+    /**
+     * Returns a completion stage that is completed with the specified object when the lifetime reaches the specified state.
+     * Or completed exceptionally if the lifetime passes the state without entering it.
+     *
+     * @param state
+     *            the state to wait for
+     * @param object
+     *            the object to complete the stage with
+     * @return the completion stage
+     */
+    public <T> CompletionStage<T> whenAt(RunState state, T object) {
+        return reached[state.ordinal()].thenApply(ignore -> object);
+    }
+
+    /** {@return an exception for waiting on a state that the lifetime passed without entering it.} */
+    private static IllegalStateException skipped(ExecutionException e) {
+        return new IllegalStateException(e.getCause().getMessage(), e.getCause());
+    }
+
+    private static RunState desired(long word) {
+        return STATES[(int) (word >>> 8) & 0xFF];
+    }
+
+    private static boolean isError(long word) {
+        return (word & ERROR_BIT) != 0;
+    }
+
+    private static long pack(RunState state, RunState desired, boolean error) {
+        return state.ordinal() | (desired.ordinal() << 8) | (error ? ERROR_BIT : 0);
+    }
+
+    private static RunState state(long word) {
+        return STATES[(int) word & 0xFF];
+    }
+
+    /** An immutable snapshot of the state of a lifetime. */
+    private record Snapshot(RunState currentState, RunState desiredState, boolean isFailed, Optional<Throwable> throwable) implements LifetimeState {
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean isRestarting() {
+            return false;
         }
     }
 }
-//
-//static final int I_INITIALIZING = ContainerState.INITIALIZING.ordinal();
-//static final int I_INITIALIZED = ContainerState.INITIALIZED.ordinal();
-//static final int I_STARTING = ContainerState.STARTING.ordinal();
-//static final int I_RUNNING = ContainerState.RUNNING.ordinal();
-//static final int I_STOPPING = ContainerState.STOPPING.ordinal();
-//static final int I_TERMINATED = ContainerState.TERMINATED.ordinal();
\ No newline at end of file
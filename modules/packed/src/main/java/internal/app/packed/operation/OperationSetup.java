@@ -27,12 +27,13 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import app.packed.bean.BeanFactoryMirror;
+import app.packed.framework.Nullable;
 import app.packed.operation.OperationHandle;
 import app.packed.operation.OperationMirror;
 import app.packed.operation.OperationTarget;
@@ -86,8 +87,9 @@ public sealed abstract class OperationSetup {
     /** Whether or not this operation can still be configured. */
     public boolean isClosed;
 
-    /** Whether or not an invoker has been computed */
-    private boolean isComputed;
+    /** The generated method handle, is null until it has been computed. */
+    @Nullable
+    private MethodHandle generatedMethodHandle;
 
     // Maybe store it in subclasses?
     public MethodHandle methodHandle;
@@ -117,17 +119,18 @@ public sealed abstract class OperationSetup {
     public final MethodHandle buildInvoker0() {
         bean.container.application.checkInCodegenPhase();
 
-        if (isComputed) {
-            // throw new IllegalStateException("This method can only be called once");
+        // The method handle is only computed once, and then shared by all consumers of the operation
+        MethodHandle mh = generatedMethodHandle;
+        if (mh == null) {
+            mh = generatedMethodHandle = doBuild();
+            bean.container.application.statistics.methodHandleGenerated();
         }
-
-        isComputed = true;
-
-        return doBuild();
+        return mh;
     }
 
+    /** {@return the beans that this operation depends on via its bindings, in the order they are bound} */
     public final Set<BeanSetup> dependsOn() {
-        HashSet<BeanSetup> result = new HashSet<>();
+        LinkedHashSet<BeanSetup> result = new LinkedHashSet<>();
         forEachBinding(b -> {
             if (b instanceof ExtensionServiceBindingSetup s) {
                 requireNonNull(s.extensionBean);
@@ -219,6 +222,7 @@ public sealed abstract class OperationSetup {
 
     /** {@return a new mirror.} */
     public final OperationMirror mirror() {
+        bean.container.application.checkMirrorsAvailable();
         OperationMirror mirror = ClassUtil.mirrorHelper(OperationMirror.class, OperationMirror::new, mirrorSupplier);
 
         // Initialize OperationMirror by calling OperationMirror#initialize(OperationSetup)
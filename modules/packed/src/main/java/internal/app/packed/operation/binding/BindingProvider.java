@@ -22,6 +22,7 @@ import java.lang.invoke.MethodHandles;
 
 import app.packed.operation.bindings.BindingProviderKind;
 import internal.app.packed.lifetime.ContainerLifetimeSetup;
+import internal.app.packed.lifetime.LifetimeAccessor.LazyAccessor;
 import internal.app.packed.lifetime.PackedExtensionContext;
 import internal.app.packed.operation.OperationSetup;
 import internal.app.packed.util.MethodHandleUtil;
@@ -145,6 +146,35 @@ public sealed abstract class BindingProvider {
         }
     }
 
+    /** Provides values by accessing a lazy bean in a lifetime arena, creating the bean on first access. */
+    public static final class FromLazyLifetimeArena extends BindingProvider {
+
+        /** The accessor of the lazy bean. */
+        public final LazyAccessor accessor;
+
+        public FromLazyLifetimeArena(LazyAccessor accessor) {
+            this.accessor = requireNonNull(accessor);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public MethodHandle bindIntoOperation(BindingSetup binding, MethodHandle methodHandle) {
+            return MethodHandles.collectArguments(methodHandle, binding.index, provideSpecial());
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public BindingProviderKind kind() {
+            return BindingProviderKind.OPERATION;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public MethodHandle provideSpecial() {
+            return accessor.readHandle();
+        }
+    }
+
     /** Provides values from the result of an operation. */
     public static final class FromOperation extends BindingProvider {
 
@@ -65,6 +65,7 @@ public abstract class BindingSetup {
 
     /** {@return a new mirror.} */
     public BindingMirror mirror() {
+        operation.bean.container.application.checkMirrorsAvailable();
         BindingMirror mirror = ClassUtil.mirrorHelper(BindingMirror.class, BindingMirror::new, mirrorSupplier);
 
         // Initialize BindingMirror by calling BindingMirror#initialize(BindingSetup)
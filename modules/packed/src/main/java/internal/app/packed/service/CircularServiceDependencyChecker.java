@@ -16,8 +16,11 @@
 package internal.app.packed.service;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 
-import app.packed.application.BuildException;
 import app.packed.service.CircularServiceDependencyException;
 import internal.app.packed.bean.BeanSetup;
 import internal.app.packed.container.ContainerSetup;
@@ -37,75 +40,237 @@ import internal.app.packed.container.ContainerSetup;
  */
 public final class CircularServiceDependencyChecker {
 
-    private static void dependencyCyclesFind(ArrayDeque<ServiceManagerEntry> stack, ArrayDeque<ServiceManagerEntry> dependencies, ContainerSetup container) {
+    /** All entries that are part of the graph, indexed by their node number. */
+    private final ArrayList<ServiceManagerEntry> nodes = new ArrayList<>();
+
+    /** Node numbers by entry. */
+    private final IdentityHashMap<ServiceManagerEntry, Integer> indexes = new IdentityHashMap<>();
+
+    private CircularServiceDependencyChecker() {}
+
+    /**
+     * Returns the node number of the specified entry, adding the entry to the graph if it is not already present.
+     *
+     * @param entry
+     *            the entry
+     * @return the node number of the entry
+     */
+    private int node(ServiceManagerEntry entry) {
+        Integer i = indexes.get(entry);
+        if (i == null) {
+            i = nodes.size();
+            indexes.put(entry, i);
+            nodes.add(entry);
+        }
+        return i;
+    }
+
+    private void addContainer(ContainerSetup container) {
         for (ServiceManagerEntry node : container.sm.entries.values()) {
             if (node.needsPostProcessing) { // only process those nodes that have not been visited yet
-                detectCycle(node, stack, dependencies);
+                node(node);
             }
         }
 
         // Process nodes in children
         for (var e = container.treeFirstChild; e != null; e = e.treeNextSiebling) {
-            dependencyCyclesFind(stack, dependencies, e);
+            addContainer(e);
         }
     }
 
-    public static void dependencyCyclesFind(ContainerSetup container) {
-        ArrayDeque<ServiceManagerEntry> stack = new ArrayDeque<>();
-        ArrayDeque<ServiceManagerEntry> dependencies = new ArrayDeque<>();
-        dependencyCyclesFind(stack, dependencies, container);
-    }
-
     /**
-     * Recursively invoked for each node.
+     * Finds all dependency cycles between services in the specified container and all of its descendants.
+     * <p>
+     * The services are first mapped to an int-indexed graph. Which is then split into strongly connected components in a
+     * single linear pass, using an iterative version of Tarjan's algorithm. So neither the number of services nor the
+     * length of dependency chains affect the depth of the Java stack.
      *
-     * @param stack
-     *            the stack of all visited dependencies so far
-     * @param dependencies
-     *            the stack of locally visited dependencies so far
-     * @param entry
-     *            the node to visit
-     * @return stuff
-     * @throws BuildException
-     *             if there is a cycle in the graph
+     * @param container
+     *            the container to check
+     * @throws CircularServiceDependencyException
+     *             if there are any cycles. Any additional cycles are added as suppressed exceptions
      */
-    private static void detectCycle(ServiceManagerEntry entry, ArrayDeque<ServiceManagerEntry> stack, ArrayDeque<ServiceManagerEntry> dependencies) {
-        ProvidedService ps = entry.provider;
-        ServiceBindingSetup binding = entry.bindings;
-        if (ps == null || binding == null) {
-            return; // leaf
+    public static void dependencyCyclesFind(ContainerSetup container) {
+        CircularServiceDependencyChecker c = new CircularServiceDependencyChecker();
+        c.addContainer(container);
+        c.findCycles();
+    }
+
+    private void findCycles() {
+        // Create a compact (CSR) representation of the graph, nodes may be added while we iterate
+        IntList edges = new IntList();
+        IntList edgeStart = new IntList();
+        for (int i = 0; i < nodes.size(); i++) {
+            edgeStart.add(edges.size);
+            ServiceManagerEntry entry = nodes.get(i);
+            ProvidedService ps = entry.provider;
+            if (ps == null) {
+                continue; // leaf
+            }
+            // An edge from this entry to every service that is provided by a bean that depends on this entry
+            for (ServiceBindingSetup binding = entry.bindings; binding != null; binding = binding.nextFriend) {
+                BeanSetup bean = binding.operation.bean;
+                for (ProvidedService psDep : bean.operationsProviders) {
+                    if (psDep.entry.needsPostProcessing) {
+                        edges.add(node(psDep.entry));
+                    }
+                }
+            }
         }
+        int n = nodes.size();
+        edgeStart.add(edges.size);
+
+        // Iterative Tarjan
+        int[] index = new int[n];
+        Arrays.fill(index, -1);
+        int[] low = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int sp = 0;
+        int[] callStack = new int[n];
+        // The position of every node on the call stack, or -1 if the node is not on the current path
+        int[] pathIndex = new int[n];
+        Arrays.fill(pathIndex, -1);
+        int[] nextEdge = new int[n];
+        int counter = 0;
 
-        // We have both bindings and provide
+        // The first cycle found is reported the same way as by a plain depth first search
+        ArrayDeque<ServiceManagerEntry> firstCycle = null;
+        int firstCycleNode = -1;
+        ArrayList<CircularServiceDependencyException> others = new ArrayList<>();
 
-        stack.push(entry);
-        while (binding != null) {
-            BeanSetup bean = binding.operation.bean;
-            for (ProvidedService psDep : bean.operationsProviders) {
-                ServiceManagerEntry next = psDep.entry;
-                if (!next.needsPostProcessing) {
+        for (int root = 0; root < n; root++) {
+            if (index[root] != -1) {
+                continue;
+            }
+            int csp = 0;
+            pathIndex[root] = csp;
+            callStack[csp++] = root;
+            index[root] = low[root] = counter++;
+            stack[sp++] = root;
+            onStack[root] = true;
+            nextEdge[root] = edgeStart.values[root];
+
+            while (csp > 0) {
+                int v = callStack[csp - 1];
+                if (nextEdge[v] < edgeStart.values[v + 1]) {
+                    int w = edges.values[nextEdge[v]++];
+                    if (index[w] == -1) {
+                        index[w] = low[w] = counter++;
+                        stack[sp++] = w;
+                        onStack[w] = true;
+                        nextEdge[w] = edgeStart.values[w];
+                        pathIndex[w] = csp;
+                        callStack[csp++] = w;
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                        if (firstCycle == null && pathIndex[w] >= 0) {
+                            firstCycle = pathCycle(callStack, pathIndex[w], csp);
+                            firstCycleNode = w;
+                        }
+                    }
                     continue;
                 }
 
-                dependencies.push(next);
-                if (stack.contains(next)) {
-                    // clear links not part of the circle, for example, for A->B->C->B we want to remove A
-                    while (stack.peekLast() != next) {
-                        stack.pollLast();
-                        dependencies.pollLast();
+                // All edges of v have been visited
+                pathIndex[v] = -1;
+                csp--;
+                if (csp > 0) {
+                    int parent = callStack[csp - 1];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+                if (low[v] == index[v]) {
+                    // v is the root of a strongly connected component
+                    int size = 0;
+                    boolean containsFirstCycle = false;
+                    int w;
+                    do {
+                        w = stack[--sp];
+                        onStack[w] = false;
+                        containsFirstCycle |= w == firstCycleNode;
+                        size++;
+                    } while (w != v);
+                    if (!containsFirstCycle && (size > 1 || hasEdge(edges, edgeStart, v, v))) {
+                        // The component consists of the nodes stack[sp] .. stack[sp + size - 1]
+                        others.add(new CircularServiceDependencyException(createErrorMessage(findCycle(edges, edgeStart, v, stack, sp, size, index))));
                     }
+                }
+            }
+        }
+        if (firstCycle != null) {
+            CircularServiceDependencyException failure = new CircularServiceDependencyException(createErrorMessage(firstCycle));
+            for (CircularServiceDependencyException e : others) {
+                failure.addSuppressed(e);
+            }
+            throw failure;
+        }
+    }
 
-                    // Create a proper error me
-                    String errorMsg = createErrorMessage(dependencies);
-                    throw new CircularServiceDependencyException(errorMsg);
+    /**
+     * Returns the cycle that is closed by an edge from the top of the call stack to the node at the specified position.
+     *
+     * @return the nodes of the cycle, such that pollLast() returns the node after the target of the edge first, and the
+     *         target of the edge last
+     */
+    private ArrayDeque<ServiceManagerEntry> pathCycle(int[] callStack, int from, int csp) {
+        ArrayDeque<ServiceManagerEntry> dependencies = new ArrayDeque<>();
+        dependencies.add(nodes.get(callStack[from]));
+        for (int i = csp - 1; i > from; i--) {
+            dependencies.add(nodes.get(callStack[i]));
+        }
+        return dependencies;
+    }
+
+    /**
+     * Finds a shortest cycle through the specified root of a strongly connected component.
+     *
+     * @return the nodes of the cycle, starting with the node after the root and ending with the root
+     */
+    private ArrayDeque<ServiceManagerEntry> findCycle(IntList edges, IntList edgeStart, int root, int[] stack, int from, int size, int[] index) {
+        // Mark the nodes of the component by reusing the index array, the nodes are no longer needed by Tarjan
+        for (int i = from; i < from + size; i++) {
+            index[stack[i]] = -2;
+        }
+        // Breadth first search from the root, within the component
+        HashMap<Integer, Integer> parents = new HashMap<>();
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(root);
+        int last = -1;
+        search: while (!queue.isEmpty()) {
+            int v = queue.poll();
+            for (int e = edgeStart.values[v]; e < edgeStart.values[v + 1]; e++) {
+                int w = edges.values[e];
+                if (w == root) {
+                    last = v;
+                    break search;
+                }
+                if (index[w] == -2) {
+                    index[w] = -3; // visited
+                    parents.put(w, v);
+                    queue.add(w);
                 }
-                detectCycle(next, stack, dependencies);
-                dependencies.pop();
             }
+        }
+        for (int i = from; i < from + size; i++) {
+            index[stack[i]] = Integer.MAX_VALUE; // no longer part of any search
+        }
 
-            binding = binding.nextFriend;
+        // Build the cycle so that pollLast() returns the nodes in order, ending with the root
+        ArrayDeque<ServiceManagerEntry> dependencies = new ArrayDeque<>();
+        dependencies.add(nodes.get(root));
+        for (int v = last; v != root; v = parents.get(v)) {
+            dependencies.add(nodes.get(v));
+        }
+        return dependencies;
+    }
+
+    private static boolean hasEdge(IntList edges, IntList edgeStart, int from, int to) {
+        for (int e = edgeStart.values[from]; e < edgeStart.values[from + 1]; e++) {
+            if (edges.values[e] == to) {
+                return true;
+            }
         }
-        stack.pop();
+        return false;
     }
 
     private static String createErrorMessage(ArrayDeque<ServiceManagerEntry> dependencies) {
@@ -126,6 +291,21 @@ public final class CircularServiceDependencyChecker {
         }
         return sb.toString();
     }
+
+    /** A minimal growable list of ints. */
+    private static final class IntList {
+
+        private int size;
+
+        private int[] values = new int[16];
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+    }
 }
 
 // From cake
@@ -16,46 +16,45 @@
 package internal.app.packed.service;
 
 import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Modifier;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 import app.packed.application.BuildException;
 import app.packed.bean.BeanSourceKind;
+import app.packed.framework.Nullable;
 import app.packed.service.Key;
 import app.packed.service.ServiceExtension;
-import app.packed.service.ServiceLocator;
 import internal.app.packed.lifetime.LifetimeAccessor;
 import internal.app.packed.lifetime.LifetimeAccessor.DynamicAccessor;
+import internal.app.packed.lifetime.LifetimeAccessor.LazyAccessor;
+import internal.app.packed.lifetime.LifetimeAccessor.SharedAccessor;
 import internal.app.packed.lifetime.PackedExtensionContext;
 import internal.app.packed.operation.OperationSetup;
 import internal.app.packed.operation.OperationSetup.MemberOperationSetup.FieldOperationSetup;
 import internal.app.packed.operation.OperationSetup.MemberOperationSetup.MethodOperationSetup;
-import internal.app.packed.util.ThrowableUtil;
+import internal.app.packed.service.PackedServiceLocator.Index;
 
 public final class OldServiceResolver {
 
     private final LinkedHashMap<Key<?>, DependencyNode> nodes = new LinkedHashMap<>();
 
+    /** The index of the service locator, computed in the code generating phase. */
+    @Nullable
+    private Index locatorIndex;
+
     public void addConsumer(OperationSetup operation, LifetimeAccessor la) {
-        if (la != null) {
-            operation.bean.container.lifetime.pool.addOrdered(p -> {
-                MethodHandle mh = operation.generateMethodHandle();
-                Object instance;
-                try {
-                    instance = mh.invoke(p);
-                } catch (Throwable e) {
-                    throw ThrowableUtil.orUndeclared(e);
-                }
-                if (instance == null) {
-                    throw new NullPointerException(this + " returned null");
-                }
-                la.store(p, instance);
-            });
+        if (la instanceof DynamicAccessor da) {
+            operation.bean.container.lifetime.pool.addOrdered(operation, da);
         }
     }
 
-    ServiceLocator newServiceLocator(PackedExtensionContext region) {
+    /**
+     * Computes the index of the service locator. Must be called in the code generating phase.
+     */
+    void codegen() {
         Map<Key<?>, MethodHandle> runtimeEntries = new LinkedHashMap<>();
         for (var e : nodes.entrySet()) {
             Key<?> key = e.getKey();
@@ -63,12 +62,35 @@ public final class OldServiceResolver {
             MethodHandle mh;
             if (export.accessor == null) {
                 mh = export.operation.generateMethodHandle();
+            } else if (export.accessor instanceof LazyAccessor la) {
+                mh = la.readHandle(); // Do not create the bean until the service is requested
+            } else if (export.accessor instanceof SharedAccessor sa) {
+                mh = sa.readHandle(); // Read from the shared segment
             } else {
-                mh = PackedExtensionContext.constant(key.rawType(), export.accessor.read(region));
+                DynamicAccessor da = (DynamicAccessor) export.accessor;
+                mh = MethodHandles.insertArguments(PackedExtensionContext.MH_CONSTANT_POOL_READER, 1, da.index());
             }
             runtimeEntries.put(key, mh);
         }
-        return new PackedServiceLocator(region, Map.copyOf(runtimeEntries));
+        locatorIndex = new Index(runtimeEntries);
+    }
+
+    /**
+     * Performs the specified action for every service that is available from a service locator.
+     * 
+     * @param action
+     *            the action to perform, the accessor is null if the service is not stored in the lifetime arena
+     */
+    public void forEachService(BiConsumer<? super Key<?>, ? super LifetimeAccessor> action) {
+        nodes.forEach((k, v) -> action.accept(k, v.accessor));
+    }
+
+    Index locatorIndex() {
+        Index index = locatorIndex;
+        if (index == null) {
+            throw new IllegalStateException("The application has not been code generated");
+        }
+        return index;
     }
 
     void provideService(ProvidedService provider) {
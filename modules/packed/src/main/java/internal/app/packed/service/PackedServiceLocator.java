@@ -18,10 +18,14 @@ package internal.app.packed.service;
 import static java.util.Objects.requireNonNull;
 
 import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
 
+import app.packed.framework.Nullable;
 import app.packed.operation.Provider;
 import app.packed.service.Key;
 import app.packed.service.ServiceLocator;
@@ -29,35 +33,217 @@ import internal.app.packed.lifetime.PackedExtensionContext;
 import internal.app.packed.util.ThrowableUtil;
 
 /**
- *
+ * A service locator for a launched application.
+ * <p>
+ * The keys and method handles of the locator are computed once, when the application is code generated, and shared by
+ * every launched instance. Looking up a service is a single map lookup followed by an exact method handle invocation.
+ * Services keyed by a class without any qualifiers can be looked up by class, which avoids creating and hashing a
+ * {@link Key}.
  */
-public record PackedServiceLocator(PackedExtensionContext pec, Map<Key<?>, MethodHandle> map) implements ServiceLocator {
+public final class PackedServiceLocator implements ServiceLocator {
+
+    /** An empty service locator. */
+    public static final PackedServiceLocator EMPTY = new PackedServiceLocator(PackedExtensionContext.EMPTY, Index.EMPTY);
+
+    /** The shared index. */
+    private final Index index;
+
+    /** The extension context that services are provided from. */
+    private final PackedExtensionContext pec;
+
+    /** Providers that are lazily created on first request. */
+    private final Provider<?>[] providers;
+
+    PackedServiceLocator(PackedExtensionContext pec, Index index) {
+        this.pec = requireNonNull(pec);
+        this.index = index;
+        this.providers = new Provider<?>[index.entries.length];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean contains(Class<?> key) {
+        requireNonNull(key, "key is null");
+        return index.find(key) != null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean contains(Key<?> key) {
+        requireNonNull(key, "key is null");
+        return index.keys.containsKey(key);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public <T> Optional<T> findInstance(Class<T> key) {
+        requireNonNull(key, "key is null");
+        Entry e = index.find(key);
+        return e == null ? Optional.empty() : Optional.of(provide(e));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public <T> Optional<T> findInstance(Key<T> key) {
+        requireNonNull(key, "key is null");
+        Entry e = index.keys.get(key);
+        return e == null ? Optional.empty() : Optional.of(provide(e));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public <T> Optional<Provider<T>> findProvider(Class<T> key) {
+        requireNonNull(key, "key is null");
+        Entry e = index.find(key);
+        return e == null ? Optional.empty() : Optional.of(provider(e));
+    }
 
     /** {@inheritDoc} */
     @Override
     public <T> Optional<Provider<T>> findProvider(Key<T> key) {
         requireNonNull(key, "key is null");
-        MethodHandle provider = map.get(key);
-        if (provider == null) {
-            return Optional.empty();
-        }
-        Provider<T> p = new Provider<>() {
+        Entry e = index.keys.get(key);
+        return e == null ? Optional.empty() : Optional.of(provider(e));
+    }
 
-            @Override
-            public T provide() {
-                try {
-                    return (T) provider.invoke(pec);
-                } catch (Throwable e) {
-                    throw ThrowableUtil.orUndeclared(e);
-                }
-            }
-        };
-        return Optional.of(p);
+    /** {@inheritDoc} */
+    @Override
+    public boolean isEmpty() {
+        return index.entries.length == 0;
     }
 
     /** {@inheritDoc} */
     @Override
     public Set<Key<?>> keys() {
-        return map.keySet();
+        return index.keys.keySet();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T provide(Entry e) {
+        try {
+            return (T) e.mh.invokeExact(pec);
+        } catch (Throwable t) {
+            throw ThrowableUtil.orUndeclared(t);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Provider<T> provider(Entry e) {
+        // Providers are immutable, so it does not matter if multiple threads race to create one
+        Provider<?> p = providers[e.index];
+        if (p == null) {
+            p = providers[e.index] = new EntryProvider<>(this, e);
+        }
+        return (Provider<T>) p;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int size() {
+        return index.entries.length;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public <T> T use(Class<T> key) {
+        requireNonNull(key, "key is null");
+        Entry e = index.find(key);
+        if (e == null) {
+            throw new NoSuchElementException("A service with the specified key does not exist, key = " + key);
+        }
+        return provide(e);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public <T> T use(Key<T> key) {
+        requireNonNull(key, "key is null");
+        Entry e = index.keys.get(key);
+        if (e == null) {
+            throw new NoSuchElementException("A service with the specified key does not exist, key = " + key);
+        }
+        return provide(e);
+    }
+
+    /** A single service in the index. */
+    private record Entry(int index, MethodHandle mh) {}
+
+    /** A provider for a single service. */
+    private record EntryProvider<T> (PackedServiceLocator locator, Entry entry) implements Provider<T> {
+
+        /** {@inheritDoc} */
+        @Override
+        public T provide() {
+            return locator.provide(entry);
+        }
+    }
+
+    /** The keys and method handles of a service locator, shared by every launch of the same application. */
+    public static final class Index {
+
+        /** An empty index. */
+        static final Index EMPTY = new Index(Map.of());
+
+        /** The method type of every method handle in the index. */
+        private static final MethodType TYPE = MethodType.methodType(Object.class, PackedExtensionContext.class);
+
+        /** Entries for every key that is a class without qualifiers. */
+        private final Map<Class<?>, Entry> classes;
+
+        /** All entries in the index. */
+        private final Entry[] entries;
+
+        /** Entries by key. */
+        private final Map<Key<?>, Entry> keys;
+
+        /**
+         * Creates a new index.
+         *
+         * @param services
+         *            method handles of type (PackedExtensionContext)T by key
+         */
+        public Index(Map<Key<?>, MethodHandle> services) {
+            HashMap<Key<?>, Entry> keys = new HashMap<>();
+            HashMap<Class<?>, Entry> classes = new HashMap<>();
+            Entry[] entries = new Entry[services.size()];
+            int i = 0;
+            for (Map.Entry<Key<?>, MethodHandle> e : services.entrySet()) {
+                Entry entry = entries[i] = new Entry(i, e.getValue().asType(TYPE));
+                i++;
+                Key<?> key = e.getKey();
+                keys.put(key, entry);
+                if (key.equals(Key.of(key.rawType()))) {
+                    classes.put(key.rawType(), entry);
+                }
+            }
+            this.entries = entries;
+            this.keys = Map.copyOf(keys);
+            this.classes = Map.copyOf(classes);
+        }
+
+        /**
+         * Finds the entry for a class key, without creating a {@link Key}.
+         *
+         * @param key
+         *            the class key
+         * @return the entry, or null if there is no service for the key
+         */
+        @Nullable
+        private Entry find(Class<?> key) {
+            Entry e = classes.get(key);
+            // Key.of(int.class) is equivalent to Key.of(Integer.class)
+            return e == null && key.isPrimitive() ? keys.get(Key.of(key)) : e;
+        }
+
+        /**
+         * Creates a new service locator for a launched application.
+         *
+         * @param pec
+         *            the extension context of the application
+         * @return the new service locator
+         */
+        public PackedServiceLocator newLocator(@Nullable PackedExtensionContext pec) {
+            return new PackedServiceLocator(pec == null ? PackedExtensionContext.EMPTY : pec, this);
+        }
     }
 }
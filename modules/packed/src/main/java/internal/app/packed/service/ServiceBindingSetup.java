@@ -53,7 +53,9 @@ public final class ServiceBindingSetup extends BindingSetup {
         super(operation, index, Realm.extension(ServiceExtension.class));
         this.entry = entry;
         this.required = required;
-        mirrorSupplier = () -> new ServiceBindingMirror(this);
+        if (!operation.bean.container.application.isLean) {
+            mirrorSupplier = () -> new ServiceBindingMirror(this);
+        }
     }
 
     /** {@inheritDoc} */
@@ -30,15 +30,14 @@ import app.packed.service.ProvideService;
 import app.packed.service.ProvidedServiceCollisionException;
 import app.packed.service.ProvidedServiceMirror;
 import app.packed.service.ServiceExtension;
-import app.packed.service.ServiceLocator;
 import app.packed.service.UnsatisfiableServiceDependencyException;
 import internal.app.packed.bean.BeanSetup;
-import internal.app.packed.lifetime.PackedExtensionContext;
 import internal.app.packed.operation.OperationSetup;
 import internal.app.packed.operation.OperationSetup.MemberOperationSetup.MethodOperationSetup;
 import internal.app.packed.operation.binding.BindingProvider;
 import internal.app.packed.operation.binding.BindingProvider.FromLifetimeArena;
 import internal.app.packed.operation.binding.BindingProvider.FromOperation;
+import internal.app.packed.service.PackedServiceLocator.Index;
 import internal.app.packed.util.StringFormatter;
 
 /** Manages services in a single container. */
@@ -55,8 +54,14 @@ public final class ServiceManager {
     /** The container's injection manager. */
     public final OldServiceResolver injectionManager = new OldServiceResolver();
 
-    public ServiceLocator newServiceLocator(PackedExtensionContext region) {
-        return injectionManager.newServiceLocator(region);
+    /** Computes the index of the service locator that is exposed by launched applications. */
+    public void codegen() {
+        injectionManager.codegen();
+    }
+
+    /** {@return the index of the service locator that is exposed by the application.} */
+    public Index locatorIndex() {
+        return injectionManager.locatorIndex();
     }
 
     public Set<Key<?>> keysAvailableInternally() {
@@ -99,7 +104,9 @@ public final class ServiceManager {
             // A service with the key has already been exported
             throw new ExportedServiceCollisionException("Jmm");
         }
-        e.os.mirrorSupplier = () -> new ExportedServiceMirror(e);
+        if (!operation.bean.container.application.isLean) {
+            e.os.mirrorSupplier = () -> new ExportedServiceMirror(e);
+        }
         return e;
     }
 
@@ -129,7 +136,9 @@ public final class ServiceManager {
         // Create a new provider
         ProvidedService provider = entry.provider = new ProvidedService(operation, isConstant, entry, r);
 
-        operation.mirrorSupplier = () -> new ProvidedServiceMirror(entry.provider);
+        if (!bean.container.application.isLean) {
+            operation.mirrorSupplier = () -> new ProvidedServiceMirror(entry.provider);
+        }
 
         // add the service provider to the bean
         operation.bean.operationsProviders.add(provider);
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package app.packed.application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.ref.WeakReference;
+
+import org.junit.jupiter.api.Test;
+
+import app.packed.container.BaseAssembly;
+import app.packed.service.ServiceLocator;
+
+/** Tests images created via {@link ApplicationDriver#newImage(app.packed.container.Assembly, app.packed.container.Wirelet...)}. */
+public class ApplicationImageTest {
+
+    /** Tests that an image does not retain the configuration of the application. */
+    @Test
+    public void configurationNotRetained() throws InterruptedException {
+        MyAssembly assembly = new MyAssembly();
+        WeakReference<MyAssembly> ref = new WeakReference<>(assembly);
+        ApplicationLauncher<ServiceLocator> image = ServiceLocator.newImage(assembly);
+        assembly = null;
+
+        for (int i = 0; i < 50 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertThat(ref.get()).isNull();
+
+        ServiceLocator sl = image.launch();
+        assertThat(sl.use(B.class).a).isSameAs(sl.use(A.class));
+    }
+
+    static class MyAssembly extends BaseAssembly {
+
+        /** {@inheritDoc} */
+        @Override
+        protected void build() {
+            provide(A.class);
+            provide(B.class);
+            exportAll();
+        }
+    }
+
+    public static class A {}
+
+    public static class B {
+        final A a;
+
+        public B(A a) {
+            this.a = a;
+        }
+    }
+}
@@ -21,6 +21,8 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.Duration;
+
 import org.junit.jupiter.api.Test;
 
 import app.packed.bean.BeanExtension;
@@ -28,6 +30,7 @@ import app.packed.bean.BeanExtensionMirror;
 import app.packed.container.AssemblyMirror;
 import app.packed.container.BaseAssembly;
 import app.packed.container.ContainerMirror;
+import app.packed.service.ServiceLocator;
 
 /**
  *
@@ -61,6 +64,14 @@ public class ApplicationMirrorTest {
         /// BuildGoal
         assertEquals(BuildGoal.NEW_MIRROR, m.buildGoal());
 
+        // BuildStatistics
+        BuildStatistics bs = m.buildStatistics();
+        assertEquals(1, bs.containerCount());
+        assertThat(bs.beanCount()).isGreaterThanOrEqualTo(1);
+        assertThat(bs.introspectedClassCount() + bs.cachedClassCount()).isEqualTo(m.container().beans().map(b -> b.beanClass()).distinct().count());
+        assertEquals(Duration.ZERO, bs.codegenTime());
+        assertThat(bs.assembleTime()).isPositive();
+
         // ContainerMirror
         ContainerMirror cm = m.container();
         assertEquals(m, cm.application());
@@ -83,4 +94,41 @@ public class ApplicationMirrorTest {
         // Use
         m.use(BeanExtensionMirror.class);
     }
+
+    @Test
+    public void classesCountedOnce() {
+        ApplicationMirror m = App.newMirror(new BaseAssembly() {
+            @Override
+            protected void build() {
+                bean().multiInstall(Multi.class);
+                bean().multiInstall(Multi.class);
+            }
+        });
+        BuildStatistics bs = m.buildStatistics();
+        assertEquals(2, bs.beanCount());
+        assertEquals(1, bs.introspectedClassCount() + bs.cachedClassCount());
+    }
+
+    /** The statistics of a launched application include the code generating phase. */
+    @Test
+    public void codegenStatistics() {
+        ServiceLocator sl = ServiceLocator.of(new BaseAssembly() {
+            @Override
+            protected void build() {
+                provide(InjectsMirror.class);
+                exportAll();
+            }
+        });
+        ApplicationMirror m = sl.use(InjectsMirror.class).mirror();
+        assertEquals(BuildGoal.LAUNCH, m.buildGoal());
+
+        BuildStatistics bs = m.buildStatistics();
+        assertThat(bs.codegenTime()).isPositive();
+        assertThat(bs.methodHandleCount()).isPositive();
+        assertThat(bs.arenaSize()).isPositive();
+    }
+
+    public record InjectsMirror(ApplicationMirror mirror) {}
+
+    public static class Multi {}
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package app.packed.application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import app.packed.bean.BeanMirror;
+import app.packed.container.AssemblyMirror;
+import app.packed.container.BaseAssembly;
+import app.packed.container.Wirelet;
+import app.packed.service.ServiceLocator;
+
+/** Tests {@link Wirelet#leanBuild()}. */
+public class LeanBuildTest {
+
+    @Test
+    public void launch() {
+        ServiceLocator sl = ServiceLocator.of(new MyAssembly(), Wirelet.leanBuild());
+        assertThat(sl.use(B.class).a).isSameAs(sl.use(A.class));
+
+        sl = ServiceLocator.newImage(new MyAssembly(), Wirelet.leanBuild()).launch();
+        assertThat(sl.use(B.class).a).isSameAs(sl.use(A.class));
+    }
+
+    @Test
+    public void mirrorsNotAvailable() {
+        assertThatThrownBy(() -> App.newMirror(new MyAssembly(), Wirelet.leanBuild())).isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void linked() {
+        ServiceLocator sl = ServiceLocator.of(new BaseAssembly() {
+            @Override
+            protected void build() {
+                AssemblyMirror child = link(new MyAssembly());
+                assertThat(child.assemblyClass()).isSameAs(MyAssembly.class);
+                assertThatThrownBy(() -> child.container()).isExactlyInstanceOf(IllegalStateException.class);
+                provide(C.class);
+                exportAll();
+            }
+        }, Wirelet.leanBuild());
+        assertThat(sl.use(C.class)).isNotNull();
+    }
+
+    @Test
+    public void mirrorsNotInjectable() {
+        assertThatThrownBy(() -> ServiceLocator.of(new BaseAssembly() {
+            @Override
+            protected void build() {
+                provide(InjectsApplicationMirror.class);
+            }
+        }, Wirelet.leanBuild())).isInstanceOf(BuildException.class).hasMessageContaining("Wirelet.leanBuild()");
+
+        assertThatThrownBy(() -> ServiceLocator.of(new BaseAssembly() {
+            @Override
+            protected void build() {
+                provide(InjectsBeanMirror.class);
+            }
+        }, Wirelet.leanBuild())).isInstanceOf(BuildException.class).hasMessageContaining("Wirelet.leanBuild()");
+    }
+
+    static class MyAssembly extends BaseAssembly {
+
+        /** {@inheritDoc} */
+        @Override
+        protected void build() {
+            provide(A.class);
+            provide(B.class);
+            exportAll();
+        }
+    }
+
+    public static class A {}
+
+    public static class C {}
+
+    public record InjectsApplicationMirror(ApplicationMirror mirror) {}
+
+    public record InjectsBeanMirror(BeanMirror mirror) {}
+
+    public static class B {
+        final A a;
+
+        public B(A a) {
+            this.a = a;
+        }
+    }
+}
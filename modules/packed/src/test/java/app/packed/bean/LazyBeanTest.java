@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package app.packed.bean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import app.packed.application.App;
+import app.packed.container.BaseAssembly;
+import app.packed.service.ServiceLocator;
+
+/** Tests beans installed via {@link BeanExtension#installLazy(Class)}. */
+public class LazyBeanTest {
+
+    static final AtomicInteger CREATED = new AtomicInteger();
+
+    @Test
+    public void createdOnFirstUse() {
+        CREATED.set(0);
+        ServiceLocator sl = ServiceLocator.of(new BaseAssembly() {
+            @Override
+            protected void build() {
+                bean().installLazy(Lazy.class).provide();
+                exportAll();
+            }
+        });
+        assertThat(CREATED.get()).isEqualTo(0);
+
+        Lazy l = sl.use(Lazy.class);
+        assertThat(CREATED.get()).isEqualTo(1);
+        assertThat(sl.use(Lazy.class)).isSameAs(l);
+        assertThat(CREATED.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void injected() {
+        CREATED.set(0);
+        ServiceLocator sl = ServiceLocator.of(new BaseAssembly() {
+            @Override
+            protected void build() {
+                bean().installLazy(Lazy.class).provide();
+                provide(UsesLazy.class);
+                exportAll();
+            }
+        });
+        assertThat(CREATED.get()).isEqualTo(1);
+        assertThat(sl.use(UsesLazy.class).lazy).isSameAs(sl.use(Lazy.class));
+    }
+
+    @Test
+    public void createdOnceWhenRacing() throws Exception {
+        CREATED.set(0);
+        ServiceLocator sl = ServiceLocator.of(new BaseAssembly() {
+            @Override
+            protected void build() {
+                bean().installLazy(SlowLazy.class).provide();
+                exportAll();
+            }
+        });
+        int threads = 8;
+        CountDownLatch ready = new CountDownLatch(threads);
+        ExecutorService es = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<SlowLazy>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(es.submit((Callable<SlowLazy>) () -> {
+                    ready.countDown();
+                    ready.await();
+                    return sl.use(SlowLazy.class);
+                }));
+            }
+            SlowLazy first = futures.get(0).get();
+            for (Future<SlowLazy> f : futures) {
+                assertThat(f.get()).isSameAs(first);
+            }
+        } finally {
+            es.shutdown();
+        }
+        assertThat(CREATED.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void initializedOnFirstUse() {
+        ServiceLocator sl = ServiceLocator.of(new BaseAssembly() {
+            @Override
+            protected void build() {
+                bean().installLazy(InitializedLazy.class).provide();
+                exportAll();
+            }
+        });
+        InitializedLazy l = sl.use(InitializedLazy.class);
+        assertThat(l.initialized).isEqualTo(1);
+        assertThat(sl.use(InitializedLazy.class).initialized).isEqualTo(1);
+    }
+
+    @Test
+    public void startNotSupported() {
+        assertThatThrownBy(() -> App.run(new BaseAssembly() {
+            @Override
+            protected void build() {
+                bean().installLazy(StartedLazy.class);
+            }
+        })).isInstanceOf(InvalidBeanDefinitionException.class);
+    }
+
+    public static class InitializedLazy {
+        int initialized;
+
+        // The receiver is read from the slot of the bean, while the bean is being created
+        @OnInitialize
+        public void init() {
+            initialized++;
+        }
+    }
+
+    public static class SlowLazy {
+        public SlowLazy() throws InterruptedException {
+            CREATED.incrementAndGet();
+            Thread.sleep(50);
+        }
+    }
+
+    public static class StartedLazy {
+        @OnStart
+        public void start() {}
+    }
+
+    public static class Lazy {
+        public Lazy() {
+            CREATED.incrementAndGet();
+        }
+    }
+
+    public static class UsesLazy {
+        final Lazy lazy;
+
+        public UsesLazy(Lazy lazy) {
+            this.lazy = lazy;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package app.packed.bean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import app.packed.application.App;
+import app.packed.container.BaseAssembly;
+
+/** Tests {@link OnInitialize}. */
+public class OnInitializeTest {
+
+    static final List<String> EVENTS = new ArrayList<>();
+
+    @Test
+    public void initializedAfterConstruction() {
+        EVENTS.clear();
+        App.run(new BaseAssembly() {
+            @Override
+            protected void build() {
+                install(Bean.class);
+            }
+        });
+        assertThat(EVENTS).containsExactly("constructed", "initialized");
+    }
+
+    @Test
+    public void imageLaunchedRepeatedly() {
+        EVENTS.clear();
+        App.Launcher image = App.newImage(new BaseAssembly() {
+            @Override
+            protected void build() {
+                install(Bean.class);
+            }
+        });
+        assertThat(EVENTS).isEmpty();
+        image.run();
+        image.run();
+        assertThat(EVENTS).containsExactly("constructed", "initialized", "constructed", "initialized");
+    }
+
+    public static class Bean {
+
+        public Bean() {
+            EVENTS.add("constructed");
+        }
+
+        @OnInitialize
+        public void init() {
+            EVENTS.add("initialized");
+        }
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package app.packed.bean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import app.packed.application.ApplicationDriver;
+import app.packed.container.BaseAssembly;
+import app.packed.lifetime.RunState;
+import app.packed.lifetime.sandbox.ManagedLifetimeController;
+
+/** Tests {@link OnStart} and {@link OnStop}. */
+public class OnStartTest {
+
+    static final List<String> EVENTS = new CopyOnWriteArrayList<>();
+
+    static final List<Thread> THREADS = new CopyOnWriteArrayList<>();
+
+    static final ApplicationDriver<TestApp> DRIVER = ApplicationDriver.builder().managedLifetime().build(MethodHandles.lookup(), TestApp.class);
+
+    @Test
+    public void startAndStopInDependencyOrder() throws InterruptedException {
+        EVENTS.clear();
+        TestApp app = DRIVER.launch(new BaseAssembly() {
+            @Override
+            protected void build() {
+                provide(A.class);
+                provide(B.class);
+                install(C.class);
+            }
+        });
+        assertThat(EVENTS).isEmpty();
+        assertThat(app.lifetime.state()).isEqualTo(RunState.INITIALIZED);
+        assertThat(app.lifetime.await(RunState.RUNNING, 0, TimeUnit.SECONDS)).isFalse();
+
+        app.lifetime.start();
+        assertThat(app.lifetime.state()).isEqualTo(RunState.RUNNING);
+        assertThat(app.lifetime.await(RunState.RUNNING, 0, TimeUnit.SECONDS)).isTrue();
+        assertThat(EVENTS).hasSize(3);
+        assertThat(EVENTS.indexOf("startA")).isLessThan(EVENTS.indexOf("startC"));
+        assertThat(EVENTS.indexOf("startB")).isLessThan(EVENTS.indexOf("startC"));
+
+        EVENTS.clear();
+        app.lifetime.stop();
+        assertThat(app.lifetime.state()).isEqualTo(RunState.TERMINATED);
+        assertThat(EVENTS).hasSize(3);
+        assertThat(EVENTS.get(0)).isEqualTo("stopC");
+    }
+
+    /** Beans that depend on each other in a chain are started and stopped by the calling thread. */
+    @Test
+    public void chainOnCallingThread() {
+        THREADS.clear();
+        TestApp app = DRIVER.launch(new BaseAssembly() {
+            @Override
+            protected void build() {
+                provide(A.class);
+                provide(OnThread.class);
+                install(DependsOnThread.class);
+            }
+        });
+        app.lifetime.start();
+        app.lifetime.stop();
+        assertThat(THREADS).hasSize(4).containsOnly(Thread.currentThread());
+    }
+
+    @Test
+    public void startInDependencyOrderThroughLazyBean() {
+        EVENTS.clear();
+        TestApp app = DRIVER.launch(new BaseAssembly() {
+            @Override
+            protected void build() {
+                provide(SlowStart.class);
+                bean().installLazy(ViaLazy.class).provide();
+                install(DependsViaLazy.class);
+            }
+        });
+        app.lifetime.start();
+        assertThat(EVENTS).containsExactly("startSlow", "startDependsViaLazy");
+
+        EVENTS.clear();
+        app.lifetime.stop();
+        assertThat(EVENTS).containsExactly("stopDependsViaLazy", "stopSlow");
+    }
+
+    @Test
+    public void failedStartOnlyStopsStartedBeans() {
+        EVENTS.clear();
+        TestApp app = DRIVER.launch(new BaseAssembly() {
+            @Override
+            protected void build() {
+                provide(A.class);
+                provide(Failing.class);
+                install(DependsOnFailing.class);
+            }
+        });
+        assertThatThrownBy(() -> app.lifetime.start()).isExactlyInstanceOf(IllegalStateException.class);
+        assertThat(app.lifetime.state()).isEqualTo(RunState.TERMINATED);
+
+        // The failing bean was partially started, its dependant was never started
+        assertThat(EVENTS).containsExactly("startA", "startFailing", "stopFailing", "stopA");
+    }
+
+    @Test
+    public void failedStartNeverRunning() {
+        TestApp app = DRIVER.launch(new BaseAssembly() {
+            @Override
+            protected void build() {
+                provide(A.class);
+                provide(Failing.class);
+            }
+        });
+        assertThatThrownBy(() -> app.lifetime.start()).isExactlyInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> app.lifetime.await(RunState.RUNNING)).isExactlyInstanceOf(IllegalStateException.class);
+        assertThat(app.lifetime.info().isFailed()).isTrue();
+        assertThat(app.lifetime.info().throwable()).isPresent();
+    }
+
+    @Test
+    public void stopNeverStarted() throws InterruptedException {
+        EVENTS.clear();
+        TestApp app = DRIVER.launch(new BaseAssembly() {
+            @Override
+            protected void build() {
+                provide(A.class);
+            }
+        });
+        app.lifetime.stop();
+        assertThat(app.lifetime.state()).isEqualTo(RunState.TERMINATED);
+        assertThat(app.lifetime.info().isFailed()).isFalse();
+        app.lifetime.await(RunState.TERMINATED);
+        assertThatThrownBy(() -> app.lifetime.await(RunState.RUNNING, 0, TimeUnit.SECONDS)).isExactlyInstanceOf(IllegalStateException.class);
+        assertThat(EVENTS).isEmpty();
+    }
+
+    @Test
+    public void stopWhileStarting() {
+        EVENTS.clear();
+        TestApp app = DRIVER.launch(new BaseAssembly() {
+            @Override
+            protected void build() {
+                provide(StopsWhileStarting.class);
+            }
+        });
+        StopsWhileStarting.lifetime = app.lifetime;
+        app.lifetime.start();
+        assertThat(app.lifetime.state()).isEqualTo(RunState.TERMINATED);
+        assertThatThrownBy(() -> app.lifetime.await(RunState.RUNNING)).isExactlyInstanceOf(IllegalStateException.class);
+        assertThat(EVENTS).containsExactly("start", "stop");
+    }
+
+    public record ViaLazy(SlowStart s) {}
+
+    public record TestApp(ManagedLifetimeController lifetime) {}
+
+    public static class A {
+
+        @OnStart
+        public void start() {
+            EVENTS.add("startA");
+        }
+
+        @OnStop
+        public void stop() {
+            EVENTS.add("stopA");
+        }
+    }
+
+    public static class B {
+
+        @OnStart
+        public void start() {
+            EVENTS.add("startB");
+        }
+
+        @OnStop
+        public void stop() {
+            EVENTS.add("stopB");
+        }
+    }
+
+    public static class C {
+
+        public C(A a, B b) {}
+
+        @OnStart
+        public void start() {
+            EVENTS.add("startC");
+        }
+
+        @OnStop
+        public void stop() {
+            EVENTS.add("stopC");
+        }
+    }
+
+    public static class OnThread {
+
+        public OnThread(A a) {}
+
+        @OnStart
+        public void start() {
+            THREADS.add(Thread.currentThread());
+        }
+
+        @OnStop
+        public void stop() {
+            THREADS.add(Thread.currentThread());
+        }
+    }
+
+    public static class DependsOnThread {
+
+        public DependsOnThread(OnThread t) {}
+
+        @OnStart
+        public void start() {
+            THREADS.add(Thread.currentThread());
+        }
+
+        @OnStop
+        public void stop() {
+            THREADS.add(Thread.currentThread());
+        }
+    }
+
+    public static class DependsViaLazy {
+
+        public DependsViaLazy(ViaLazy l) {}
+
+        @OnStart
+        public void start() {
+            EVENTS.add("startDependsViaLazy");
+        }
+
+        @OnStop
+        public void stop() {
+            EVENTS.add("stopDependsViaLazy");
+        }
+    }
+
+    public static class DependsOnFailing {
+
+        public DependsOnFailing(Failing f) {}
+
+        @OnStart
+        public void start() {
+            EVENTS.add("startDependsOnFailing");
+        }
+
+        @OnStop
+        public void stop() {
+            EVENTS.add("stopDependsOnFailing");
+        }
+    }
+
+    public static class Failing {
+
+        public Failing(A a) {}
+
+        @OnStart
+        public void start() {
+            EVENTS.add("startFailing");
+            throw new IllegalStateException();
+        }
+
+        @OnStop
+        public void stop() {
+            EVENTS.add("stopFailing");
+        }
+    }
+
+    public static class SlowStart {
+
+        @OnStart
+        public void start() throws InterruptedException {
+            Thread.sleep(50);
+            EVENTS.add("startSlow");
+        }
+
+        @OnStop
+        public void stop() throws InterruptedException {
+            Thread.sleep(50);
+            EVENTS.add("stopSlow");
+        }
+    }
+
+    public static class StopsWhileStarting {
+
+        static ManagedLifetimeController lifetime;
+
+        @OnStart
+        public void start() throws InterruptedException {
+            EVENTS.add("start");
+            // Stop from another thread, the lifetime is stopped once it has been started
+            Thread t = new Thread(() -> lifetime.stop());
+            t.start();
+            t.join();
+        }
+
+        @OnStop
+        public void stop() {
+            EVENTS.add("stop");
+        }
+    }
+}
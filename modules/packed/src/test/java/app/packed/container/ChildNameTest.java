@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package app.packed.container;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import app.packed.application.App;
+import app.packed.application.ApplicationMirror;
+import app.packed.bean.BeanMirror;
+
+/** Tests the names that are generated for beans and containers that are not explicitly named. */
+public class ChildNameTest {
+
+    /** Names that are in use are skipped. */
+    @Test
+    public void beans() {
+        ApplicationMirror m = App.newMirror(new BaseAssembly() {
+            @Override
+            protected void build() {
+                install(Baz.class).named("Foo1");
+                install(P.Foo.class);
+                install(Q.Foo.class);
+                install(R.Foo.class);
+            }
+        });
+        assertThat(m.container().beans().map(BeanMirror::name)).containsExactlyInAnyOrder("Foo1", "Foo", "Foo2", "Foo3");
+    }
+
+    /** A name that is freed by renaming a bean is the first name tried. */
+    @Test
+    public void beanRenamedThenAdded() {
+        ApplicationMirror m = App.newMirror(new BaseAssembly() {
+            @Override
+            protected void build() {
+                install(P.Foo.class);
+                install(Q.Foo.class).named("Bar");
+                install(R.Foo.class);
+                install(S.Foo.class);
+            }
+        });
+        assertThat(m.container().beans().map(BeanMirror::name)).containsExactlyInAnyOrder("Foo", "Bar", "Foo1", "Foo2");
+    }
+
+    /** The suffixes of a multi installed bean class are never reused. */
+    @Test
+    public void multiInstall() {
+        ApplicationMirror m = App.newMirror(new BaseAssembly() {
+            @Override
+            protected void build() {
+                install(Baz.class).named("Foo11");
+                bean().multiInstall(Foo1.class);
+                bean().multiInstall(Foo1.class);
+                bean().multiInstall(Foo1.class).named("Other");
+                bean().multiInstall(Foo1.class);
+            }
+        });
+        assertThat(m.container().beans().map(BeanMirror::name)).containsExactlyInAnyOrder("Foo11", "Foo1", "Foo12", "Other", "Foo14");
+    }
+
+    @Test
+    public void containers() {
+        ApplicationMirror m = App.newMirror(new BaseAssembly() {
+            @Override
+            protected void build() {
+                link(new ChildAssembly(null));
+                link(new ChildAssembly("Child2"));
+                link(new ChildAssembly(null));
+                link(new ChildAssembly(null));
+            }
+        });
+        assertThat(m.container().children().map(ContainerMirror::name)).containsExactlyInAnyOrder("Child", "Child2", "Child1", "Child3");
+    }
+
+    /** A name that is freed by renaming a container is the first name tried. */
+    @Test
+    public void containerRenamedThenAdded() {
+        ApplicationMirror m = App.newMirror(new BaseAssembly() {
+            @Override
+            protected void build() {
+                link(new ChildAssembly(null));
+                link(new ChildAssembly("Other"));
+                link(new ChildAssembly(null));
+                link(new ChildAssembly(null));
+            }
+        });
+        assertThat(m.container().children().map(ContainerMirror::name)).containsExactlyInAnyOrder("Child", "Other", "Child1", "Child2");
+    }
+
+    /** A child assembly that renames its container, if a name is specified. */
+    static class ChildAssembly extends BaseAssembly {
+
+        final String name;
+
+        ChildAssembly(String name) {
+            this.name = name;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void build() {
+            if (name != null) {
+                configuration().named(name);
+            }
+        }
+    }
+
+    public static class Baz {}
+
+    public static class Foo1 {}
+
+    static class P {
+        public static class Foo {}
+    }
+
+    static class Q {
+        public static class Foo {}
+    }
+
+    static class R {
+        public static class Foo {}
+    }
+
+    static class S {
+        public static class Foo {}
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package app.packed.service;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import app.packed.application.App;
+import app.packed.application.BuildException;
+import app.packed.container.BaseAssembly;
+
+/** Tests {@link CircularServiceDependencyException}. */
+public class CircularServiceDependencyTest {
+
+    @Test
+    public void twoServices() {
+        assertThatThrownBy(() -> App.verify(new BaseAssembly() {
+            @Override
+            protected void build() {
+                provide(A.class);
+                provide(B.class);
+            }
+        })).isExactlyInstanceOf(CircularServiceDependencyException.class)
+                .hasMessage("Circular dependencies between 2 services: A <-> B");
+    }
+
+    @Test
+    public void threeServices() {
+        assertThatThrownBy(() -> App.verify(new BaseAssembly() {
+            @Override
+            protected void build() {
+                provide(X.class);
+                provide(Y.class);
+                provide(Z.class);
+            }
+        })).isExactlyInstanceOf(CircularServiceDependencyException.class)
+                .hasMessage("Circular dependencies between 3 services: app.packed.service.CircularServiceDependencyTest$X -> app.packed.service.CircularServiceDependencyTest$Z"
+                        + " -> app.packed.service.CircularServiceDependencyTest$Y");
+    }
+
+    @Test
+    public void throughLazyBean() {
+        assertThatThrownBy(() -> App.verify(new BaseAssembly() {
+            @Override
+            protected void build() {
+                provide(A.class);
+                bean().installLazy(B.class).provide();
+            }
+        })).isInstanceOf(BuildException.class).hasMessageContaining("Circular dependencies between");
+    }
+
+    public record A(B b) {}
+
+    public record B(A a) {}
+
+    public record X(Y y) {}
+
+    public record Y(Z z) {}
+
+    public record Z(X x) {}
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package app.packed.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import app.packed.bean.OnInitialize;
+import app.packed.bean.OnStart;
+import app.packed.container.Assembly;
+import app.packed.container.BaseAssembly;
+
+/** Tests {@link ServiceLocator#generateSource(String, app.packed.container.Assembly, app.packed.container.Wirelet...)}. */
+public class GeneratedServiceLocatorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void generate() throws Exception {
+        String source = ServiceLocator.generateSource("gen.MyLocator", new MyAssembly());
+        assertThat(source).contains("package gen;", "public final class MyLocator implements app.packed.service.ServiceLocator");
+
+        ServiceLocator sl = compile("gen.MyLocator", source);
+        assertThat(sl.keys()).containsExactlyInAnyOrder(Key.of(A.class), Key.of(B.class));
+        B b = sl.use(B.class);
+        assertThat(b.a).isSameAs(sl.use(A.class));
+        assertThat(b.initialized).isTrue();
+        assertThat(b.started).isFalse();
+        sl.getClass().getMethod("start").invoke(sl);
+        assertThat(b.started).isTrue();
+        assertThat(sl.findInstance(String.class)).isEmpty();
+    }
+
+    @Test
+    public void checkedExceptions() throws Exception {
+        ServiceLocator sl = compile("gen.Checked", ServiceLocator.generateSource("gen.Checked", new BaseAssembly() {
+            @Override
+            protected void build() {
+                provide(Checked.class);
+                exportAll();
+            }
+        }));
+        assertThat(sl.use(Checked.class).initialized).isTrue();
+
+        Checked.fail = true;
+        try {
+            assertThatThrownBy(() -> compile("gen.Checked2", ServiceLocator.generateSource("gen.Checked2", new BaseAssembly() {
+                @Override
+                protected void build() {
+                    provide(Checked.class);
+                }
+            }))).isExactlyInstanceOf(UndeclaredThrowableException.class).hasCauseExactlyInstanceOf(IOException.class);
+        } finally {
+            Checked.fail = false;
+        }
+    }
+
+    @Test
+    public void unsupported() {
+        class Instance extends BaseAssembly {
+            @Override
+            protected void build() {
+                provideInstance("foo");
+            }
+        }
+        assertThrows(UnsupportedOperationException.class, () -> ServiceLocator.generateSource("gen.Foo", new Instance()));
+
+        Assembly generic = new BaseAssembly() {
+            @Override
+            protected void build() {
+                bean().install(Strings.class).provideAs(new Key<List<String>>() {});
+            }
+        };
+        assertThrows(UnsupportedOperationException.class, () -> ServiceLocator.generateSource("gen.Foo", generic));
+    }
+
+    /** Compiles the specified source, and creates a new instance of the compiled class. */
+    private ServiceLocator compile(String className, String source) throws Exception {
+        Path src = dir.resolve(className.replace('.', '/') + ".java");
+        Files.createDirectories(src.getParent());
+        Files.writeString(src, source);
+        Path out = Files.createDirectories(dir.resolve("out"));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fm = compiler.getStandardFileManager(null, null, null)) {
+            fm.setLocation(StandardLocation.CLASS_OUTPUT, List.of(out.toFile()));
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fm, null, List.of("-classpath", System.getProperty("java.class.path")), null,
+                    fm.getJavaFileObjects(src));
+            assertTrue(task.call());
+        }
+
+        URLClassLoader loader = new URLClassLoader(new URL[] { out.toUri().toURL() }, GeneratedServiceLocatorTest.class.getClassLoader());
+        try {
+            return (ServiceLocator) loader.loadClass(className).getConstructor().newInstance();
+        } catch (java.lang.reflect.InvocationTargetException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    public static class MyAssembly extends BaseAssembly {
+
+        /** {@inheritDoc} */
+        @Override
+        protected void build() {
+            provide(A.class);
+            provide(B.class);
+            exportAll();
+        }
+    }
+
+    public static class A {}
+
+    public static class B {
+        final A a;
+
+        boolean initialized;
+
+        boolean started;
+
+        public B(A a) {
+            this.a = a;
+        }
+
+        @OnInitialize
+        public void init() {
+            initialized = a != null;
+        }
+
+        @OnStart
+        public void start() {
+            started = true;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    public static class Strings extends ArrayList<String> {}
+
+    public static class Checked {
+
+        static boolean fail;
+
+        boolean initialized;
+
+        public Checked() throws Exception {}
+
+        @OnInitialize
+        public void init() throws IOException {
+            if (fail) {
+                throw new IOException();
+            }
+            initialized = true;
+        }
+    }
+}
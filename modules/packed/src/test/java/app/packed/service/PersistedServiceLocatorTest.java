@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package app.packed.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import app.packed.application.ApplicationLauncher;
+import app.packed.bean.OnInitialize;
+import app.packed.container.Assembly;
+import app.packed.container.BaseAssembly;
+import app.packed.container.CacheableAssembly;
+
+/** Tests {@link ServiceLocator#newImage(Path, app.packed.container.Assembly, app.packed.container.Wirelet...)}. */
+public class PersistedServiceLocatorTest {
+
+    /** Used by {@link C}. */
+    static final List<String> EVENTS = new ArrayList<>();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void persisted() throws IOException {
+        MyAssembly.builds = 0;
+        Path file = dir.resolve("locator.plan");
+        ServiceLocator sl = ServiceLocator.newImage(file, new MyAssembly()).launch();
+        assertTrue(Files.exists(file));
+        assertEquals(1, MyAssembly.builds);
+        assertThat(sl.use(B.class).initialized).isTrue();
+
+        // The second image is created from the plan, without building the application
+        ApplicationLauncher<ServiceLocator> image = ServiceLocator.newImage(file, new MyAssembly());
+        assertEquals(1, MyAssembly.builds);
+        for (int i = 0; i < 2; i++) {
+            ServiceLocator s = image.launch();
+            assertEquals(sl.keys(), s.keys());
+            B b = s.use(B.class);
+            assertSame(s.use(A.class), b.a);
+            assertTrue(b.initialized);
+        }
+
+        // A corrupted plan is ignored
+        Files.write(file, new byte[] { 1, 2, 3 });
+        sl = ServiceLocator.newImage(file, new MyAssembly()).launch();
+        assertEquals(2, MyAssembly.builds);
+        assertThat(sl.use(B.class).a).isNotNull();
+        assertFalse(Files.readAllBytes(file).length == 3);
+    }
+
+    @Test
+    public void notCacheable() {
+        Path file = dir.resolve("locator.plan");
+        StatefulAssembly.builds = 0;
+        ServiceLocator.newImage(file, new StatefulAssembly(A.class)).launch();
+        assertFalse(Files.exists(file));
+
+        ServiceLocator sl = ServiceLocator.newImage(file, new StatefulAssembly(B.class)).launch();
+        assertEquals(2, StatefulAssembly.builds);
+        assertTrue(sl.keys().contains(Key.of(B.class)));
+    }
+
+    /** A linked assembly is recompiled in place, and starts installing another bean. */
+    @Test
+    public void linkedAssemblyChanged() throws Exception {
+        Path file = dir.resolve("locator.plan");
+        compile("Child", """
+                public class Child extends app.packed.container.BaseAssembly {
+                    protected void build() {}
+                }
+                """);
+        compile("Root", """
+                @app.packed.container.CacheableAssembly
+                public class Root extends app.packed.container.BaseAssembly {
+                    protected void build() {
+                        provide(app.packed.service.PersistedServiceLocatorTest.A.class);
+                        exportAll();
+                        link(new Child());
+                    }
+                }
+                """);
+        EVENTS.clear();
+        ServiceLocator.newImage(file, newAssembly("Root")).launch();
+        assertTrue(Files.exists(file));
+
+        compile("Child", """
+                public class Child extends app.packed.container.BaseAssembly {
+                    protected void build() {
+                        install(app.packed.service.PersistedServiceLocatorTest.C.class);
+                    }
+                }
+                """);
+        ServiceLocator.newImage(file, newAssembly("Root")).launch();
+        assertThat(EVENTS).containsExactly("initialized");
+    }
+
+    private void compile(String className, String source) throws IOException {
+        Path src = Files.writeString(dir.resolve(className + ".java"), source);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fm = compiler.getStandardFileManager(null, null, null)) {
+            fm.setLocation(StandardLocation.CLASS_OUTPUT, List.of(Files.createDirectories(dir.resolve("out")).toFile()));
+            List<String> options = List.of("-classpath", System.getProperty("java.class.path") + File.pathSeparator + dir.resolve("out"));
+            assertTrue(compiler.getTask(null, fm, null, options, null, fm.getJavaFileObjects(src)).call());
+        }
+    }
+
+    /** Loads the specified assembly class in a new class loader, and creates a new instance of it. */
+    private Assembly newAssembly(String className) throws Exception {
+        URLClassLoader loader = new URLClassLoader(new URL[] { dir.resolve("out").toUri().toURL() }, PersistedServiceLocatorTest.class.getClassLoader());
+        return (Assembly) loader.loadClass(className).getConstructor().newInstance();
+    }
+
+    @CacheableAssembly
+    public static class MyAssembly extends BaseAssembly {
+
+        static int builds;
+
+        /** {@inheritDoc} */
+        @Override
+        protected void build() {
+            builds++;
+            provide(A.class);
+            provide(B.class);
+            exportAll();
+        }
+    }
+
+    public static class StatefulAssembly extends BaseAssembly {
+
+        static int builds;
+
+        final Class<?> service;
+
+        StatefulAssembly(Class<?> service) {
+            this.service = service;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void build() {
+            builds++;
+            provide(A.class);
+            if (service != A.class) {
+                provide(service);
+            }
+            exportAll();
+        }
+    }
+
+    public static class A {}
+
+    public static class C {
+
+        @OnInitialize
+        public void init() {
+            EVENTS.add("initialized");
+        }
+    }
+
+    public static class B {
+        final A a;
+
+        boolean initialized;
+
+        public B(A a) {
+            this.a = a;
+        }
+
+        @OnInitialize
+        public void init() {
+            initialized = a != null;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import app.packed.application.ApplicationDriver;
+import app.packed.application.BuildGoal;
+import app.packed.container.BaseAssembly;
+import app.packed.container.CacheableAssembly;
+import app.packed.container.Wirelet;
+import app.packed.extension.Extension;
+import app.packed.operation.Op1;
+import app.packed.service.ServiceLocator;
+import internal.app.packed.application.PackedApplicationDriver.ReusableApplicationImage;
+
+/** Tests {@link ApplicationImageCache}. */
+public class ApplicationImageCacheTest {
+
+    @Test
+    public void launch() {
+        PackedApplicationDriver<ServiceLocator> driver = newDriver();
+        CachedAssembly.builds = 0;
+
+        ServiceLocator sl1 = driver.launch(new CachedAssembly());
+        ServiceLocator sl2 = driver.launch(new CachedAssembly());
+        assertThat(CachedAssembly.builds).isEqualTo(1);
+        assertThat(sl2.use(A.class)).isNotSameAs(sl1.use(A.class));
+
+        // Different wirelets, different images
+        driver.launch(new CachedAssembly(), Wirelet.named("foo"));
+        driver.launch(new CachedAssembly(), Wirelet.named("foo"));
+        assertThat(CachedAssembly.builds).isEqualTo(2);
+
+        assertThat(driver.imageCache.hits()).isEqualTo(2);
+        assertThat(driver.imageCache.misses()).isEqualTo(2);
+        assertThat(driver.imageCache.size()).isEqualTo(2);
+    }
+
+    /** Extensions must see the same build goal whether or not the image is cached. */
+    @Test
+    public void sameGoal() {
+        PackedApplicationDriver<ServiceLocator> driver = newDriver();
+        GoalExtension.GOALS.clear();
+        driver.launch(new GoalAssembly());
+        driver.launch(new CachedGoalAssembly());
+        driver.launch(new CachedGoalAssembly());
+
+        assertThat(GoalExtension.GOALS).containsExactly(BuildGoal.LAUNCH, BuildGoal.LAUNCH);
+        assertThat(driver.imageCache.hits()).isEqualTo(1);
+    }
+
+    @Test
+    public void notCacheable() {
+        PackedApplicationDriver<ServiceLocator> driver = newDriver();
+        driver.launch(new UncachedAssembly());
+        driver.launch(new UncachedAssembly());
+
+        assertThat(driver.imageCache.misses()).isZero();
+        assertThat(driver.imageCache.size()).isZero();
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        ApplicationImageCache cache = new ApplicationImageCache(2);
+        PackedApplicationLauncher l = ((ReusableApplicationImage<?>) newDriver().newImage(new UncachedAssembly())).launcher();
+        ApplicationImageCache.Key k1 = ApplicationImageCache.keyOf(new CachedAssembly(), new Wirelet[0]);
+        ApplicationImageCache.Key k2 = ApplicationImageCache.keyOf(new CachedAssembly(), new Wirelet[] { Wirelet.named("a") });
+        ApplicationImageCache.Key k3 = ApplicationImageCache.keyOf(new CachedAssembly(), new Wirelet[] { Wirelet.named("b") });
+        cache.put(k1, l);
+        cache.put(k2, l);
+        cache.get(k1);
+        cache.put(k3, l);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(k1)).isSameAs(l);
+        assertThat(cache.get(k2)).isNull();
+        assertThat(cache.get(k3)).isSameAs(l);
+    }
+
+    private static PackedApplicationDriver<ServiceLocator> newDriver() {
+        return (PackedApplicationDriver<ServiceLocator>) ApplicationDriver.builder().build(ServiceLocator.class,
+                new Op1<ApplicationInitializationContext, ServiceLocator>(c -> c.serviceLocator()) {});
+    }
+
+    @CacheableAssembly
+    static class CachedAssembly extends BaseAssembly {
+
+        static int builds;
+
+        /** {@inheritDoc} */
+        @Override
+        protected void build() {
+            builds++;
+            provide(A.class);
+            exportAll();
+        }
+    }
+
+    static class UncachedAssembly extends BaseAssembly {
+
+        /** {@inheritDoc} */
+        @Override
+        protected void build() {
+            provide(A.class);
+            exportAll();
+        }
+    }
+
+    static class GoalAssembly extends BaseAssembly {
+
+        /** {@inheritDoc} */
+        @Override
+        protected void build() {
+            use(GoalExtension.class);
+        }
+    }
+
+    @CacheableAssembly
+    static class CachedGoalAssembly extends GoalAssembly {}
+
+    public static final class GoalExtension extends Extension<GoalExtension> {
+
+        static final List<BuildGoal> GOALS = new ArrayList<>();
+
+        GoalExtension() {}
+
+        /** {@inheritDoc} */
+        @Override
+        protected void onNew() {
+            GOALS.add(buildGoal());
+        }
+    }
+
+    public static class A {}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import app.packed.application.App;
+import app.packed.container.BaseAssembly;
+
+/** Tests {@link ClassListRecorder}. */
+public class ClassListRecorderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void record() throws IOException {
+        List<String> classes = ClassListRecorder.record(() -> {
+            App.Launcher image = App.newImage(new BaseAssembly() {
+                @Override
+                protected void build() {
+                    install(RecordedBean.class);
+                }
+            });
+            for (int i = 0; i < 3; i++) {
+                image.run();
+            }
+            // Loads a lambda proxy, which is a hidden class
+            Supplier<String> s = () -> "foo";
+            s.get();
+        });
+        assertThat(classes).contains(RecordedBean.class.getName());
+        for (String c : classes) {
+            assertThat(c).doesNotContain("+0x", "/");
+            assertThat(ClassLoader.getSystemResource(c.replace('.', '/') + ".class")).as(c).isNotNull();
+        }
+
+        Path file = dir.resolve("app.classlist");
+        ClassListRecorder.write(file, List.of(RecordedBean.class.getName()));
+        assertThat(Files.readAllLines(file)).last().isEqualTo(RecordedBean.class.getName().replace('.', '/'));
+    }
+
+    @Test
+    public void archiveRequiresJars() throws IOException {
+        Path empty = Files.createDirectory(dir.resolve("empty"));
+        Path jar = Files.createFile(dir.resolve("foo.jar"));
+        ClassListRecorder.checkArchivable(empty + File.pathSeparator + jar);
+
+        Path classes = Files.createDirectory(dir.resolve("classes"));
+        Files.createFile(classes.resolve("Foo.class"));
+        assertThatThrownBy(() -> ClassListRecorder.checkArchivable(jar + File.pathSeparator + classes)).isExactlyInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(classes.toString());
+    }
+}
+
+/** A bean that is only loaded by {@link ClassListRecorderTest#record()}, JUnit loads every nested class of a test. */
+class RecordedBean {}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import app.packed.application.App;
+import app.packed.bean.OnInitialize;
+import app.packed.container.BaseAssembly;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+/** Tests the JFR events emitted when building and launching applications. */
+public class PackedEventTest {
+
+    static final List<String> BUILD_AND_LAUNCH = List.of("app.packed.AssemblyBuild", "app.packed.ContainerLink", "app.packed.ExtensionActivation",
+            "app.packed.ExtensionCallback", "app.packed.BeanIntrospection", "app.packed.ApplicationLaunch", "app.packed.LifetimeInitialization");
+
+    @Test
+    public void buildAndLaunch() throws InterruptedException {
+        Map<String, List<RecordedEvent>> events = record(BUILD_AND_LAUNCH, () -> App.run(new ParentAssembly()));
+        assertThat(events.get("app.packed.ContainerLink").get(0).getClass("assemblyClass").getName()).isEqualTo(ChildAssembly.class.getName());
+        assertThat(events.get("app.packed.LifetimeInitialization").get(0).getInt("arenaSize")).isPositive();
+
+        // Bean construction events are disabled by default
+        assertThat(events).doesNotContainKey("app.packed.BeanConstruction");
+    }
+
+    @Test
+    public void beanConstruction() throws InterruptedException {
+        // Only folded into applications that are built while the event is being recorded
+        App.Launcher notRecorded = App.newImage(new ChildAssembly());
+        Map<String, List<RecordedEvent>> events = record(List.of("app.packed.BeanConstruction"), () -> {
+            notRecorded.run();
+            App.run(new OtherAssembly());
+        });
+        assertThat(events.get("app.packed.BeanConstruction")).extracting(e -> e.getClass("beanClass").getName())
+                .containsExactly(OtherBean.class.getName());
+    }
+
+    /** Runs the specified action while recording the specified events, and waits until each of them has been received. */
+    private static Map<String, List<RecordedEvent>> record(List<String> names, Runnable action) throws InterruptedException {
+        ConcurrentHashMap<String, List<RecordedEvent>> events = new ConcurrentHashMap<>();
+        CountDownLatch latch = new CountDownLatch(names.size());
+        try (RecordingStream rs = new RecordingStream()) {
+            for (String name : names) {
+                rs.enable(name).withThreshold(Duration.ZERO);
+            }
+            rs.onEvent(e -> {
+                String name = e.getEventType().getName();
+                if (name.startsWith("app.packed.") && events.computeIfAbsent(name, k -> new CopyOnWriteArrayList<>()).add(e)
+                        && events.get(name).size() == 1 && names.contains(name)) {
+                    latch.countDown();
+                }
+            });
+            rs.startAsync();
+            action.run();
+            assertThat(latch.await(30, TimeUnit.SECONDS)).as("Received " + events.keySet()).isTrue();
+        }
+        return events;
+    }
+
+    public static class Bean {
+        @OnInitialize
+        public void init() {}
+    }
+
+    public static class ChildAssembly extends BaseAssembly {
+        @Override
+        protected void build() {
+            install(Bean.class);
+        }
+    }
+
+    public static class OtherBean {}
+
+    public static class OtherAssembly extends BaseAssembly {
+        @Override
+        protected void build() {
+            install(OtherBean.class);
+        }
+    }
+
+    public static class ParentAssembly extends BaseAssembly {
+        @Override
+        protected void build() {
+            provide(Bean.class);
+            link(new ChildAssembly());
+        }
+    }
+}
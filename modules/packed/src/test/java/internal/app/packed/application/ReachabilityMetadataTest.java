@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import app.packed.application.App;
+import app.packed.bean.OnInitialize;
+import app.packed.container.BaseAssembly;
+
+/** Tests {@link ReachabilityMetadata}. */
+public class ReachabilityMetadataTest {
+
+    @Test
+    public void metadata() {
+        ReachabilityMetadata m = ReachabilityMetadata.of(App.newMirror(new MyAssembly()));
+
+        String config = m.toReflectConfig();
+        assertThat(config).startsWith("[").endsWith("]\n");
+        assertThat(config).contains("\"name\": \"" + B.class.getName() + "\",\n    \"queryAllDeclaredConstructors\": true");
+        assertThat(config).contains("{ \"name\": \"<init>\", \"parameterTypes\": [\"" + A.class.getName() + "\"] }");
+        assertThat(config).contains("{ \"name\": \"init\", \"parameterTypes\": [] }");
+        assertThat(config).contains("{ \"name\": \"<init>\", \"parameterTypes\": [] }");
+
+        String metadata = m.toReachabilityMetadata();
+        assertThat(metadata).startsWith("{\n  \"reflection\": [");
+        assertThat(metadata).contains("\"type\": \"" + A.class.getName() + "\"");
+        assertThat(metadata).doesNotContain("queryAllDeclaredMethods");
+
+        // Members are only queried, fields that are accessed are registered individually
+        assertThat(config).doesNotContain("allDeclaredFields");
+        assertThat(metadata).doesNotContain("allDeclaredFields");
+    }
+
+    /** JDK superclasses of beans are not registered. */
+    @Test
+    public void jdkSuperclass() {
+        ReachabilityMetadata m = ReachabilityMetadata.of(App.newMirror(new BaseAssembly() {
+            @Override
+            protected void build() {
+                install(T.class);
+            }
+        }));
+        assertThat(m.toReflectConfig()).contains(T.class.getName()).doesNotContain(Thread.class.getName());
+        assertThat(m.toReachabilityMetadata()).contains(T.class.getName()).doesNotContain(Thread.class.getName());
+    }
+
+    public static class MyAssembly extends BaseAssembly {
+
+        /** {@inheritDoc} */
+        @Override
+        protected void build() {
+            provide(A.class);
+            provide(B.class);
+        }
+    }
+
+    public static class A {}
+
+    public static class T extends Thread {}
+
+    public static class B {
+        public B(A a) {}
+
+        @OnInitialize
+        public void init() {}
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.bean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import app.packed.application.App;
+import app.packed.bean.OnInitialize;
+import app.packed.container.BaseAssembly;
+
+/** Tests {@link BeanClassModel}. */
+public class BeanClassModelTest {
+
+    static final List<String> EVENTS = new ArrayList<>();
+
+    @Test
+    public void replayedOnSecondIntrospection() {
+        EVENTS.clear();
+        App.run(new MyAssembly());
+        BeanClassModel model = BeanHookModel.of(MyAssembly.class).lookupBeanClass(Bean.class);
+        assertThat(model.claim()).isFalse();
+
+        App.run(new MyAssembly());
+        assertThat(BeanHookModel.of(MyAssembly.class).lookupBeanClass(Bean.class)).isSameAs(model);
+        assertThat(model.methods).hasSize(1);
+        assertThat(EVENTS).containsExactly("initialized", "initialized");
+    }
+
+    @Test
+    public void annotationsNotExposed() {
+        BeanClassModel model = BeanHookModel.of(MyAssembly.class).lookupBeanClass(Bean.class);
+        Annotation[] shared = model.methods[0].annotations();
+        Annotation[] exposed = new BeanAnnotationReader(shared).annotations();
+        assertThat(exposed).isNotSameAs(shared).containsExactly(shared);
+        exposed[0] = null;
+        assertThat(shared[0]).isNotNull();
+    }
+
+    /** The test index deliberately omits the hooked methods. */
+    @Test
+    public void indexed(@TempDir Path dir) throws Exception {
+        Path index = Files.writeString(dir.resolve("bean-hooks.idx"),
+                Indexed.class.getName() + " " + crc(Indexed.class, 0) + "\n" + Stale.class.getName() + " " + crc(Stale.class, 1) + "\n");
+        IndexedLoader loader = new IndexedLoader(index);
+        BeanHookModel hookModel = BeanHookModel.of(MyAssembly.class);
+
+        Class<?> indexed = loader.loadClass(Indexed.class.getName());
+        assertThat(BeanClassIndex.of(indexed)).isNotNull();
+        assertThat(BeanClassModel.of(hookModel, indexed).methods).isEmpty();
+
+        // The class file has changed since it was indexed, so it is scanned reflectively
+        Class<?> stale = loader.loadClass(Stale.class.getName());
+        assertThat(BeanClassIndex.of(stale)).isNull();
+        assertThat(BeanClassModel.of(hookModel, stale).methods).hasSize(1);
+
+        // The class is not in the index
+        assertThat(BeanClassIndex.of(Bean.class)).isNull();
+        assertThat(BeanClassModel.of(hookModel, Bean.class).methods).hasSize(1);
+    }
+
+    /** {@return the checksum of the class file of the specified class, xor the specified value} */
+    private static String crc(Class<?> c, long xor) throws IOException {
+        try (InputStream in = c.getResourceAsStream(c.getName().substring(c.getName().lastIndexOf('.') + 1) + ".class")) {
+            CRC32 crc = new CRC32();
+            crc.update(in.readAllBytes());
+            return Long.toHexString(crc.getValue() ^ xor);
+        }
+    }
+
+    static class MyAssembly extends BaseAssembly {
+
+        /** {@inheritDoc} */
+        @Override
+        protected void build() {
+            install(Bean.class);
+        }
+    }
+
+    public static class Indexed {
+
+        @OnInitialize
+        public void init() {}
+    }
+
+    public static class Stale {
+
+        @OnInitialize
+        public void init() {}
+    }
+
+    public static class Bean {
+
+        @OnInitialize
+        public void init() {
+            EVENTS.add("initialized");
+        }
+    }
+
+    /** Defines its own copies of {@link Indexed} and {@link Stale}, and adds a test index. */
+    static final class IndexedLoader extends ClassLoader {
+
+        final Path index;
+
+        IndexedLoader(Path index) {
+            super(BeanClassModelTest.class.getClassLoader());
+            this.index = index;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.equals(Indexed.class.getName()) && !name.equals(Stale.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> c = findLoadedClass(name);
+                if (c == null) {
+                    try (InputStream in = getResourceAsStream(name.replace('.', '/') + ".class")) {
+                        byte[] b = in.readAllBytes();
+                        c = defineClass(name, b, 0, b.length);
+                    } catch (IOException e) {
+                        throw new ClassNotFoundException(name, e);
+                    }
+                }
+                return c;
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected Enumeration<URL> findResources(String name) throws IOException {
+            return name.equals(BeanClassIndex.RESOURCE) ? Collections.enumeration(List.of(index.toUri().toURL())) : Collections.emptyEnumeration();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.lifetime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/** Tests {@link BeanOrder#sort(int, int[], int[])}. */
+public class BeanOrderTest {
+
+    @Test
+    public void dependenciesFirst() {
+        // 0 -> 2, 1 -> 0, 2 -> nothing, 3 -> 1, 2
+        int[] order = BeanOrder.sort(4, new int[] { 0, 1, 2, 2, 4 }, new int[] { 2, 0, 1, 2 });
+        assertThat(order).containsExactly(2, 0, 1, 3);
+    }
+
+    @Test
+    public void independentInOriginalOrder() {
+        int[] order = BeanOrder.sort(3, new int[] { 0, 0, 0, 0 }, new int[0]);
+        assertThat(order).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    public void cycle() {
+        // 0 -> nothing, 1 -> 2, 2 -> 3, 3 -> 1
+        int[] order = BeanOrder.sort(4, new int[] { 0, 0, 1, 2, 3 }, new int[] { 2, 3, 1 });
+        assertThat(order).containsExactly(0);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.lifetime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import app.packed.application.ApplicationDriver;
+import app.packed.application.ApplicationLauncher;
+import app.packed.container.BaseAssembly;
+import app.packed.operation.Op1;
+import internal.app.packed.application.ApplicationInitializationContext;
+
+/** Tests the shared segment of {@link PackedExtensionContext}. */
+public class SharedSegmentTest {
+
+    static final ApplicationDriver<PackedExtensionContext> DRIVER = ApplicationDriver.builder().build(PackedExtensionContext.class,
+            new Op1<ApplicationInitializationContext, PackedExtensionContext>(c -> c.pool()) {});
+
+    /** Installed instances are stored once, and every launch of an image references the same segment. */
+    @Test
+    public void notCopiedPerLaunch() {
+        Shared shared = new Shared();
+        ApplicationLauncher<PackedExtensionContext> image = DRIVER.newImage(new BaseAssembly() {
+            @Override
+            protected void build() {
+                installInstance(shared);
+                install(PerLaunch.class);
+            }
+        });
+
+        PackedExtensionContext c1 = image.launch();
+        PackedExtensionContext c2 = image.launch();
+        assertThat(c1).isNotSameAs(c2);
+        assertThat(c1.shared()).hasSize(1).isSameAs(c2.shared());
+        assertThat(c1.readShared(0)).isSameAs(shared);
+
+        // Only the bean that is created by the application is stored in the per-launch segment
+        assertThat(c1.read(0)).isInstanceOf(PerLaunch.class).isNotSameAs(c2.read(0));
+        assertThat(c1.toString()).isEqualTo("ConstantPool [size = 1, shared = 1]");
+    }
+
+    public static class PerLaunch {}
+
+    public static class Shared {}
+}
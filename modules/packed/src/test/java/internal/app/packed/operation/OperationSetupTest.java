@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.operation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.invoke.MethodHandle;
+
+import org.junit.jupiter.api.Test;
+
+import app.packed.application.App;
+import app.packed.container.BaseAssembly;
+import internal.app.packed.application.PackedBuildStatistics;
+import internal.app.packed.bean.BeanSetup;
+
+/** Tests {@link OperationSetup}. */
+public class OperationSetupTest {
+
+    /** The invoker of an operation is only generated once, and then shared. */
+    @Test
+    public void invokerGeneratedOnce() {
+        BeanSetup[] bean = new BeanSetup[1];
+        // Mirrors are not code generated, so no invokers have been generated when the build is done
+        App.newMirror(new BaseAssembly() {
+            @Override
+            protected void build() {
+                bean[0] = BeanSetup.crack(install(A.class));
+            }
+        });
+
+        OperationSetup operation = bean[0].operations.get(0);
+        PackedBuildStatistics statistics = bean[0].container.application.statistics;
+        assertThat(statistics.methodHandleCount()).isZero();
+
+        MethodHandle mh = operation.buildInvoker0();
+        assertThat(operation.buildInvoker0()).isSameAs(mh);
+        assertThat(statistics.methodHandleCount()).isEqualTo(1);
+    }
+
+    public static class A {}
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2008 Kasper Nielsen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package internal.app.packed.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.junit.jupiter.api.Test;
+
+import app.packed.service.Key;
+import internal.app.packed.lifetime.PackedExtensionContext;
+import internal.app.packed.service.PackedServiceLocator.Index;
+import testutil.stubs.Letters.A;
+import testutil.stubs.Letters.B;
+import testutil.stubs.annotation.Left;
+
+/** Tests {@link PackedServiceLocator}. */
+public class PackedServiceLocatorTest {
+
+    static final A A_INSTANCE = new A();
+
+    static final A LEFT_A_INSTANCE = new A();
+
+    private static MethodHandle constant(Class<?> type, Object value) {
+        return MethodHandles.dropArguments(MethodHandles.constant(type, value), 0, PackedExtensionContext.class);
+    }
+
+    private static PackedServiceLocator locator() {
+        return new Index(Map.of(Key.of(A.class), constant(A.class, A_INSTANCE), new Key<@Left A>() {}, constant(A.class, LEFT_A_INSTANCE),
+                Key.of(Integer.class), constant(Integer.class, 123))).newLocator(null);
+    }
+
+    @Test
+    public void findByClass() {
+        PackedServiceLocator sl = locator();
+        assertThat(sl.contains(A.class)).isTrue();
+        assertThat(sl.contains(B.class)).isFalse();
+        assertThat(sl.use(A.class)).isSameAs(A_INSTANCE).isSameAs(sl.use(new Key<A>() {}));
+        assertThat(sl.findInstance(A.class)).containsSame(A_INSTANCE);
+        assertThat(sl.findProvider(A.class).get().provide()).isSameAs(sl.findProvider(new Key<A>() {}).get().provide());
+        assertThat(sl.findInstance(B.class)).isEmpty();
+        assertThatThrownBy(() -> sl.use(B.class)).isExactlyInstanceOf(NoSuchElementException.class);
+
+        // Qualified keys can only be looked up by key
+        assertThat(sl.use(new Key<@Left A>() {})).isSameAs(LEFT_A_INSTANCE);
+        assertThat(sl.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void primitiveFallback() {
+        PackedServiceLocator sl = locator();
+        // Key.of(int.class) is equivalent to Key.of(Integer.class)
+        assertThat(sl.contains(int.class)).isTrue();
+        assertThat(sl.use(int.class)).isEqualTo(123);
+        assertThat(sl.findInstance(int.class)).contains(123);
+        assertThat(sl.contains(long.class)).isFalse();
+    }
+}